@@ -1,24 +1,111 @@
 package org.bithub.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
 /**
  * Configuration class for Spotify integration.
  * Provides beans required for making external API calls.
+ * <p>
+ * All Spotify traffic goes through one pooled, keep-alive connection
+ * manager, tuned with {@code spotify.http.*}:
+ * </p>
+ * <ul>
+ *     <li>pool limits in total and per route (api.spotify.com / accounts.spotify.com)</li>
+ *     <li>connect, read and pool-wait timeouts, so a hung call cannot stall the scheduler</li>
+ *     <li>eviction of idle and expired connections</li>
+ *     <li>pool metrics as {@code httpcomponents.httpclient.pool.*} (tag {@code httpclient=spotify})</li>
+ * </ul>
  */
 @Configuration
 public class SpotifyConfig {
 
+    @Value("${spotify.http.max-connections:50}")
+    private int maxConnections;
+
+    @Value("${spotify.http.max-connections-per-route:20}")
+    private int maxConnectionsPerRoute;
+
+    @Value("${spotify.http.connect-timeout-ms:3000}")
+    private long connectTimeoutMs;
+
+    @Value("${spotify.http.read-timeout-ms:10000}")
+    private long readTimeoutMs;
+
+    @Value("${spotify.http.pool-timeout-ms:2000}")
+    private long poolTimeoutMs;
+
+    @Value("${spotify.http.idle-eviction-seconds:30}")
+    private long idleEvictionSeconds;
+
+    @Value("${spotify.http.connection-ttl-minutes:5}")
+    private long connectionTtlMinutes;
+
+    /**
+     * Connection pool shared by every Spotify caller.
+     *
+     * @param meterRegistry registry for the pool metrics
+     * @return the pooled connection manager
+     */
+    @Bean
+    public PoolingHttpClientConnectionManager spotifyConnectionManager(MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnectionsPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .setTimeToLive(TimeValue.ofMinutes(connectionTtlMinutes))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(10))
+                        .build())
+                .build();
+
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "spotify").bindTo(meterRegistry);
+        return connectionManager;
+    }
+
+    /**
+     * HTTP client on top of the shared pool. Closed (together with the pool) on shutdown.
+     *
+     * @param spotifyConnectionManager the pooled connection manager
+     * @return the shared HTTP client
+     */
+    @Bean
+    public CloseableHttpClient spotifyHttpClient(PoolingHttpClientConnectionManager spotifyConnectionManager) {
+        return HttpClients.custom()
+                .setConnectionManager(spotifyConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(poolTimeoutMs))
+                        .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .build())
+                .evictIdleConnections(TimeValue.ofSeconds(idleEvictionSeconds))
+                .evictExpiredConnections()
+                .build();
+    }
+
     /**
      * Creates a {@link RestTemplate} bean used across the application
      * for sending HTTP requests to Spotify or other external services.
+     * Every caller shares this instance and its connection pool.
      *
+     * @param spotifyHttpClient the shared HTTP client
      * @return a configured RestTemplate instance
      */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(CloseableHttpClient spotifyHttpClient) {
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(spotifyHttpClient));
     }
 }
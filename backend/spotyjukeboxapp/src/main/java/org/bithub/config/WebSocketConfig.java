@@ -20,13 +20,15 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
      * clients and the server.
      *
      * "/topic" is used for broadcasting messages to subscribed clients,
-     * while "/app" is used as a prefix for client-to-server communication.
+     * "/queue" for replies to a single session (e.g. vote acknowledgements
+     * on "/user/queue/votes"), while "/app" is used as a prefix for
+     * client-to-server communication.
      *
      * @param config the message broker configuration
      */
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic");
+        config.enableSimpleBroker("/topic", "/queue");
         config.setApplicationDestinationPrefixes("/app");
     }
 
@@ -34,6 +36,8 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
      * Registers the WebSocket endpoint used by clients to connect
      * to the server. SockJS is enabled to support fallback options
      * for browsers that do not support native WebSocket.
+     * Inbound messages of a session are handled in the order they were
+     * received, so vote replies on "/user/queue/votes" match send order.
      *
      * @param registry the STOMP endpoint registry
      */
@@ -42,5 +46,6 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         registry.addEndpoint("/ws")
                 .setAllowedOrigins("http://localhost:5173", "http://127.0.0.1:5173")
                 .withSockJS();
+        registry.setPreserveReceiveOrder(true);
     }
 }
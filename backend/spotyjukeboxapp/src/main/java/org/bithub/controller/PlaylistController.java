@@ -4,7 +4,9 @@ import lombok.RequiredArgsConstructor;
 import org.bithub.model.UserInfo;
 import org.bithub.service.SpotifyService;
 import org.bithub.service.UserService;
-import org.bithub.service.SpotifyRefreshService;
+import org.bithub.service.SpotifyGateway;
+import org.bithub.service.SpotifyThrottledException;
+import org.bithub.service.SpotifyUnavailableException;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.client.HttpClientErrorException;
@@ -23,12 +25,13 @@ import java.util.Map;
 public class PlaylistController {
 
     private final UserService userService;
-    private final SpotifyRefreshService spotifyRefreshService;
+    private final SpotifyGateway spotifyGateway;
     private final SpotifyService spotifyService;
+    private final RestTemplate restTemplate;
 
     /**
      * Retrieves a user's Spotify playlists. If the access token has expired,
-     * it attempts to refresh it and retry the request.
+     * the {@link SpotifyGateway} refreshes it and retries the request once.
      *
      * @param userId the internal user ID in the application
      * @return a list of playlists or an appropriate error response
@@ -45,18 +48,18 @@ public class PlaylistController {
             return fetchPlaylists(user);
 
         } catch (HttpClientErrorException.Unauthorized e) {
-            UserInfo refreshed = spotifyRefreshService.refreshAccessToken(user);
-            if (refreshed == null) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                        .body(Map.of("error", "Failed to refresh token"));
-            }
-
-            try {
-                return fetchPlaylists(refreshed);
-            } catch (Exception retryEx) {
-                return ResponseEntity.internalServerError()
-                        .body(Map.of("error", "Failed to fetch after token refresh"));
-            }
+            // The gateway already refreshed the token and retried once
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("error", "Failed to refresh token"));
+
+        } catch (SpotifyThrottledException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf((e.getRetryAfterMillis() + 999) / 1000))
+                    .body(Map.of("error", "Spotify is busy, please retry shortly"));
+
+        } catch (SpotifyUnavailableException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "Spotify is currently unavailable"));
 
         } catch (Exception e) {
             return ResponseEntity.internalServerError()
@@ -71,18 +74,17 @@ public class PlaylistController {
      * @return the Spotify API response body
      */
     private ResponseEntity<?> fetchPlaylists(UserInfo user) {
-        RestTemplate restTemplate = new RestTemplate();
-        HttpHeaders headers = new HttpHeaders();
-        headers.setBearerAuth(user.getAccessToken());
-
-        HttpEntity<Void> entity = new HttpEntity<>(headers);
-
-        ResponseEntity<Map> response = restTemplate.exchange(
-                "https://api.spotify.com/v1/me/playlists?limit=20&offset=0",
-                HttpMethod.GET,
-                entity,
-                Map.class
-        );
+        ResponseEntity<Map> response = spotifyGateway.call("playlists", user, token -> {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setBearerAuth(token);
+
+            return restTemplate.exchange(
+                    "https://api.spotify.com/v1/me/playlists?limit=20&offset=0",
+                    HttpMethod.GET,
+                    new HttpEntity<>(headers),
+                    Map.class
+            );
+        });
 
         return ResponseEntity.ok(response.getBody());
     }
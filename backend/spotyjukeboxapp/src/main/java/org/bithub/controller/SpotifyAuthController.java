@@ -24,6 +24,7 @@ import java.util.HashSet;
 public class SpotifyAuthController {
 
     private final UserService userService;
+    private final RestTemplate restTemplate;
 
     @Value("${spotify.client-id}")
     private String clientId;
@@ -51,7 +52,6 @@ public class SpotifyAuthController {
 
         try {
             // Step 1: Exchange authorization code for tokens
-            RestTemplate restTemplate = new RestTemplate();
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
             headers.setBasicAuth(clientId, clientSecret);
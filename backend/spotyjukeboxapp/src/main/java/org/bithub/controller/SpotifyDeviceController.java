@@ -4,7 +4,10 @@ import lombok.RequiredArgsConstructor;
 import org.bithub.model.SpotifyDevice;
 import org.bithub.model.UserInfo;
 import org.bithub.service.SpotifyService;
+import org.bithub.service.SpotifyThrottledException;
 import org.bithub.service.UserService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -90,6 +93,7 @@ public class SpotifyDeviceController {
 
     /**
      * Retrieves the currently playing track for the specified Spotify user.
+     * Answers {@code 503} with {@code Retry-After} while Spotify calls are rate-limited.
      *
      * @param ownerId the Spotify user ID
      * @return the currently playing track data or an error response
@@ -102,6 +106,10 @@ public class SpotifyDeviceController {
 
             Map<String, Object> data = spotifyService.getNowPlaying(user);
             return ResponseEntity.ok(data);
+        } catch (SpotifyThrottledException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf((e.getRetryAfterMillis() + 999) / 1000))
+                    .body(Map.of("error", "Spotify is busy, please retry shortly"));
         } catch (Exception e) {
             return ResponseEntity.internalServerError()
                     .body(Map.of("error", "Failed to fetch currently playing track"));
@@ -1,18 +1,42 @@
 package org.bithub.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.bithub.model.Vote;
+import org.bithub.model.VoteUpdate;
+import org.bithub.service.VoteBroadcaster;
+import org.bithub.service.VoteClientIds;
+import org.bithub.service.VoteRateLimiter;
 import org.bithub.service.VoteService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.annotation.SendToUser;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.HashMap;
 import java.util.Map;
-import java.util.UUID;
 
 /**
  * REST controller for managing voting actions in the Jukebox system.
  * Handles track voting, vote broadcasting, and resetting votes when a track is played.
+ * <p>
+ * Votes are also accepted over STOMP on {@code /app/vote}, so guests already
+ * subscribed to {@code /topic/votes/{ownerId}} can vote without an extra HTTP request.
+ * </p>
+ * <p>
+ * Both vote paths are throttled per caller and per owner session by the
+ * {@link VoteRateLimiter} before anything reaches {@link VoteService}.
+ * The caller is identified by something it cannot pick itself: a clientId
+ * issued by {@code POST /client-id} (see {@link VoteClientIds}) over HTTP,
+ * the STOMP session over WebSocket.
+ * </p>
  */
 @RestController
 @RequestMapping("/api/jukebox")
@@ -23,14 +47,44 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class VoteController {
 
+    private static final String RATE_LIMITED = "Too many votes, please slow down.";
+    private static final String UNKNOWN_CLIENT = "Unknown clientId, request a new one.";
+
     private final VoteService voteService;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final VoteBroadcaster voteBroadcaster;
+    private final VoteRateLimiter voteRateLimiter;
+    private final VoteClientIds voteClientIds;
+
+    /**
+     * Issues a clientId for a guest. Guests keep it and send it with every vote;
+     * votes with a clientId the server did not issue are refused.
+     * Requests are rate-limited per remote address (behind a proxy, the
+     * forwarded address; see {@code server.forward-headers-strategy}).
+     *
+     * @param request the HTTP request, whose remote address is rate-limited
+     * @return the new clientId, or {@code 429 Too Many Requests}
+     */
+    @PostMapping("/client-id")
+    public ResponseEntity<?> issueClientId(HttpServletRequest request) {
+        long retryAfterMillis = voteRateLimiter.tryIssue(request.getRemoteAddr());
+        if (retryAfterMillis > 0) {
+            return tooManyRequests(retryAfterMillis);
+        }
+        return ResponseEntity.ok(Map.of("clientId", voteClientIds.issue()));
+    }
 
     /**
-     * Registers a vote for a specific track and broadcasts the updated vote count
-     * to all connected clients via WebSocket.
+     * Registers a vote for a specific track. The updated vote count is
+     * broadcast to all connected clients via WebSocket as part of the next
+     * coalesced update (see {@link VoteBroadcaster}).
+     * <p>
+     * The clientId must have been issued by {@link #issueClientId}; others are
+     * answered with {@code 401 Unauthorized}. Requests over the rate limit,
+     * counted per clientId, are answered with {@code 429 Too Many Requests}
+     * and a {@code Retry-After} header.
+     * </p>
      *
-     * @param payload the request body containing ownerId, trackId, and optionally clientId
+     * @param payload the request body containing ownerId, trackId and clientId
      * @return the created {@link Vote} object or an error message
      */
     @PostMapping("/vote")
@@ -38,13 +92,21 @@ public class VoteController {
         try {
             String ownerId = payload.get("ownerId");
             String trackId = payload.get("trackId");
-            String clientId = payload.getOrDefault("clientId", UUID.randomUUID().toString());
+            String clientId = payload.get("clientId");
+            if (ownerId == null || trackId == null || clientId == null || clientId.isBlank()) {
+                return ResponseEntity.badRequest().body(Map.of("error", "ownerId, trackId and clientId are required"));
+            }
 
-            Vote vote = voteService.addVote(ownerId, trackId, clientId);
+            if (!voteClientIds.isValid(clientId)) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", UNKNOWN_CLIENT));
+            }
+
+            long retryAfterMillis = voteRateLimiter.tryAcquire(ownerId, "client:" + clientId);
+            if (retryAfterMillis > 0) {
+                return tooManyRequests(retryAfterMillis);
+            }
 
-            // Broadcast updated votes to all clients in real time
-            Map<String, Long> updatedVotes = voteService.getActiveVotes(ownerId);
-            messagingTemplate.convertAndSend("/topic/votes/" + ownerId, updatedVotes);
+            Vote vote = voteService.addVote(ownerId, trackId, clientId);
 
             return ResponseEntity.ok(vote);
         } catch (Exception e) {
@@ -52,6 +114,55 @@ public class VoteController {
         }
     }
 
+    /**
+     * Registers a vote sent over the STOMP connection ({@code /app/vote}).
+     * The outcome is sent back only to the sending session on
+     * {@code /user/queue/votes}; an optional {@code requestId} is echoed
+     * so the client can match replies to votes.
+     *
+     * @param payload   the message body containing ownerId, trackId, and optionally clientId / requestId
+     * @param sessionId STOMP session ID; rate-limited, and used as clientId when none is provided
+     * @return an acknowledgement or an error reply
+     */
+    @MessageMapping("/vote")
+    @SendToUser(destinations = "/queue/votes", broadcast = false)
+    public Map<String, Object> voteOverStomp(@Payload Map<String, String> payload,
+                                             @Header(SimpMessageHeaderAccessor.SESSION_ID_HEADER) String sessionId) {
+        String ownerId = payload.get("ownerId");
+        String trackId = payload.get("trackId");
+        String clientId = payload.getOrDefault("clientId", sessionId);
+
+        Map<String, Object> reply = new HashMap<>();
+        reply.put("trackId", trackId);
+        if (payload.containsKey("requestId")) {
+            reply.put("requestId", payload.get("requestId"));
+        }
+
+        if (ownerId == null || trackId == null) {
+            reply.put("error", "ownerId and trackId are required");
+            return reply;
+        }
+        if (payload.containsKey("clientId") && !voteClientIds.isValid(clientId)) {
+            reply.put("error", UNKNOWN_CLIENT);
+            return reply;
+        }
+
+        long retryAfterMillis = voteRateLimiter.tryAcquire(ownerId, "stomp:" + sessionId);
+        if (retryAfterMillis > 0) {
+            reply.put("error", RATE_LIMITED);
+            reply.put("retryAfterMs", retryAfterMillis);
+            return reply;
+        }
+
+        try {
+            voteService.addVote(ownerId, trackId, clientId);
+            reply.put("status", "ok");
+        } catch (Exception e) {
+            reply.put("error", e.getMessage());
+        }
+        return reply;
+    }
+
     /**
      * Resets votes for a track after it has been played.
      *
@@ -82,4 +193,46 @@ public class VoteController {
     public ResponseEntity<?> getVotes(@PathVariable String ownerId) {
         return ResponseEntity.ok(voteService.getActiveVotes(ownerId));
     }
+
+    /**
+     * Retrieves the tracks of a session ranked by time-decayed score.
+     *
+     * @param ownerId the Spotify owner ID
+     * @return a list of track IDs with their raw vote counts and decayed scores
+     */
+    @GetMapping("/votes/{ownerId}/scores")
+    public ResponseEntity<?> getDecayedScores(@PathVariable String ownerId) {
+        return ResponseEntity.ok(voteService.getDecayedScores(ownerId));
+    }
+
+    /**
+     * Returns a sequence-numbered snapshot of the votes of a session.
+     * Clients apply the deltas of {@code /topic/votes/{ownerId}} on top of it
+     * and fetch a new snapshot whenever they detect a sequence gap.
+     *
+     * @param ownerId the Spotify owner ID
+     * @return a snapshot {@link VoteUpdate}
+     */
+    @GetMapping("/votes/{ownerId}/snapshot")
+    public ResponseEntity<VoteUpdate> getVoteSnapshot(@PathVariable String ownerId) {
+        return ResponseEntity.ok(voteBroadcaster.snapshot(ownerId));
+    }
+
+    /**
+     * STOMP variant of {@link #getVoteSnapshot(String)}: subscribing to
+     * {@code /app/votes/{ownerId}/snapshot} replies once with the snapshot.
+     *
+     * @param ownerId the Spotify owner ID
+     * @return a snapshot {@link VoteUpdate}
+     */
+    @SubscribeMapping("/votes/{ownerId}/snapshot")
+    public VoteUpdate subscribeVoteSnapshot(@DestinationVariable String ownerId) {
+        return voteBroadcaster.snapshot(ownerId);
+    }
+
+    private static ResponseEntity<?> tooManyRequests(long retryAfterMillis) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf((retryAfterMillis + 999) / 1000))
+                .body(Map.of("error", RATE_LIMITED));
+    }
 }
@@ -0,0 +1,20 @@
+package org.bithub.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * The answer of {@code GET /me/player/devices}, limited to the fields
+ * mapped into {@link SpotifyDevice}.
+ *
+ * @param devices the user's available devices
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record SpotifyDeviceList(List<Device> devices) {
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Device(String id, String name, String type,
+                         @JsonProperty("is_active") boolean isActive) {}
+}
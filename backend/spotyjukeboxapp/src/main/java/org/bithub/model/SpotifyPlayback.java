@@ -0,0 +1,32 @@
+package org.bithub.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The answer of {@code GET /me/player/currently-playing}, limited to the
+ * fields the Jukebox uses.
+ *
+ * @param isPlaying  whether playback is running
+ * @param progressMs position within the track, if known
+ * @param item       the current track, if any
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record SpotifyPlayback(@JsonProperty("is_playing") boolean isPlaying,
+                              @JsonProperty("progress_ms") Long progressMs,
+                              SpotifyTrack item) {
+
+    /**
+     * @return the Spotify-shaped map served to clients and cached by the now-playing cache
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> body = new HashMap<>();
+        body.put("is_playing", isPlaying);
+        if (progressMs != null) body.put("progress_ms", progressMs);
+        if (item != null) body.put("item", item.toMap());
+        return body;
+    }
+}
@@ -0,0 +1,24 @@
+package org.bithub.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.List;
+
+/**
+ * One page of {@code GET /playlists/{id}/tracks}.
+ *
+ * @param total number of items in the whole playlist
+ * @param items the items of this page
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record SpotifyPlaylistPage(int total, List<Item> items) {
+
+    /** Selector for the {@code fields} parameter. */
+    public static final String FIELDS = "total,items(track(" + SpotifyTrack.FIELDS + "))";
+
+    /**
+     * @param track the item's track ({@code null} for unavailable items)
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Item(SpotifyTrack track) {}
+}
@@ -0,0 +1,17 @@
+package org.bithub.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * The answer of {@code GET /me/player/queue}, limited to the fields the
+ * Jukebox uses.
+ *
+ * @param currentlyPlaying the current track, if any
+ * @param queue            the upcoming tracks
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record SpotifyQueue(@JsonProperty("currently_playing") SpotifyTrack currentlyPlaying,
+                           List<SpotifyTrack> queue) {}
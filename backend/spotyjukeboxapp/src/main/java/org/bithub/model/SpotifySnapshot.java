@@ -0,0 +1,13 @@
+package org.bithub.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * A playlist's {@code snapshot_id}, as returned by playlist lookups and edits.
+ * It changes with every edit of the playlist.
+ *
+ * @param snapshotId the playlist version
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record SpotifySnapshot(@JsonProperty("snapshot_id") String snapshotId) {}
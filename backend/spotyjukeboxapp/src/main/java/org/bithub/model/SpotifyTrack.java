@@ -0,0 +1,72 @@
+package org.bithub.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A Spotify track as decoded from the Web API, limited to the fields the
+ * Jukebox uses. Everything else in the payload (markets, external IDs,
+ * preview URLs, ...) is skipped while parsing.
+ *
+ * @param id         the Spotify track ID ({@code null} for local files)
+ * @param uri        the Spotify track URI
+ * @param name       the track name
+ * @param durationMs the track length in milliseconds
+ * @param artists    the track's artists
+ * @param album      the track's album
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record SpotifyTrack(String id,
+                           String uri,
+                           String name,
+                           @JsonProperty("duration_ms") long durationMs,
+                           List<Artist> artists,
+                           Album album) {
+
+    /** Selector for the {@code fields} parameter, relative to a track object. */
+    public static final String FIELDS = "id,uri,name,duration_ms,artists(name),album(name,images(url))";
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Artist(String name) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Album(String name, List<Image> images) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Image(String url) {}
+
+    /**
+     * Converts the track to the map shape served to clients, which is the
+     * Spotify shape reduced to the decoded fields. Only the first (largest)
+     * album image is kept, as that is the one clients show.
+     *
+     * @return a mutable map, so callers can add vote and cooldown data
+     */
+    public Map<String, Object> toMap() {
+        List<Map<String, Object>> artistMaps = new ArrayList<>();
+        if (artists != null) artists.forEach(a -> artistMaps.add(Collections.singletonMap("name", a.name())));
+
+        List<Map<String, Object>> imageMaps = new ArrayList<>(1);
+        if (album != null && album.images() != null && !album.images().isEmpty() && album.images().get(0).url() != null) {
+            imageMaps.add(Map.of("url", album.images().get(0).url()));
+        }
+        Map<String, Object> albumMap = new HashMap<>();
+        albumMap.put("name", album != null ? album.name() : null);
+        albumMap.put("images", imageMaps);
+
+        Map<String, Object> track = new HashMap<>();
+        track.put("id", id);
+        track.put("uri", uri);
+        track.put("name", name);
+        track.put("duration_ms", durationMs);
+        track.put("artists", artistMaps);
+        track.put("album", albumMap);
+        return track;
+    }
+}
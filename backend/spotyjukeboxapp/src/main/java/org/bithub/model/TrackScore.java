@@ -0,0 +1,12 @@
+package org.bithub.model;
+
+/**
+ * Time-decayed vote score of a track within a Jukebox session.
+ * Every vote starts with a weight of 1 that halves once per configured
+ * half-life, so recent votes outweigh older ones.
+ *
+ * @param trackId the unique Spotify track ID
+ * @param votes   the raw number of active votes for this track
+ * @param score   the decayed score as of the time of the read
+ */
+public record TrackScore(String trackId, long votes, double score) {}
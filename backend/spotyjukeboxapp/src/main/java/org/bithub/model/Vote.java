@@ -10,7 +10,13 @@ import java.time.LocalDateTime;
  * and a unique client identifier.
  */
 @Entity
-@Table(name = "votes")
+@Table(
+        name = "votes",
+        uniqueConstraints = @UniqueConstraint(
+                name = "ux_votes_owner_track_client",
+                columnNames = {"owner_id", "track_id", "client_id"}
+        )
+)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -18,9 +24,14 @@ import java.time.LocalDateTime;
 @Builder
 public class Vote {
 
-    /** Auto-generated primary key for the vote record. */
+    /**
+     * Auto-generated primary key for the vote record.
+     * Sequence-based with a pooled allocation so that inserts can be JDBC-batched.
+     * The sequence is moved past existing IDs on startup by {@code VoteSequenceSeeder}.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "votes_seq")
+    @SequenceGenerator(name = "votes_seq", sequenceName = "votes_seq", allocationSize = 50)
     private Long id;
 
     /** The Spotify user ID representing the Jukebox session owner (DJ). */
@@ -35,9 +46,14 @@ public class Vote {
     /** Timestamp indicating when the vote was created. */
     private LocalDateTime createdAt;
 
-    /** Automatically sets the creation timestamp before persisting. */
+    /**
+     * Sets the creation timestamp before persisting, unless the vote already has one
+     * (votes are written behind and keep the time they were cast).
+     */
     @PrePersist
     public void onCreate() {
-        this.createdAt = LocalDateTime.now();
+        if (this.createdAt == null) {
+            this.createdAt = LocalDateTime.now();
+        }
     }
 }
@@ -0,0 +1,19 @@
+package org.bithub.model;
+
+import java.util.Map;
+
+/**
+ * A vote update pushed to {@code /topic/votes/{ownerId}}, or a snapshot
+ * returned to a client that needs to resynchronize.
+ * <p>
+ * Deltas only contain the tracks whose count changed since the previous
+ * update; a count of {@code 0} means the track no longer has votes.
+ * Sequence numbers are per session and increase by exactly one per delta,
+ * so a client that sees a gap requests a new snapshot.
+ * </p>
+ *
+ * @param seq      sequence number of the update (for snapshots: of the last delta included)
+ * @param snapshot {@code true} if {@code votes} holds the full trackId → count map
+ * @param votes    changed (delta) or all (snapshot) trackId → count entries
+ */
+public record VoteUpdate(long seq, boolean snapshot, Map<String, Long> votes) {}
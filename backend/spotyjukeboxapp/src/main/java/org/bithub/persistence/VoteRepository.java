@@ -65,4 +65,13 @@ public interface VoteRepository extends JpaRepository<Vote, Long> {
      * @return a list of votes matching the owner and track
      */
     List<Vote> findByOwnerIdAndTrackId(String ownerId, String trackId);
+
+    /**
+     * Finds all votes created after a given timestamp, oldest first.
+     * Used to replay the vote log into the in-memory tally on startup.
+     *
+     * @param since the minimum creation timestamp (exclusive)
+     * @return votes ordered by creation time ascending
+     */
+    List<Vote> findByCreatedAtAfterOrderByCreatedAtAsc(LocalDateTime since);
 }
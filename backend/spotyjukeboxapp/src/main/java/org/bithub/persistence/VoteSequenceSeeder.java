@@ -0,0 +1,47 @@
+package org.bithub.persistence;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * VoteSequenceSeeder
+ * ------------------------------------------------------------------------
+ * Moves {@code votes_seq} past the highest existing vote ID on startup.
+ *
+ * Vote IDs used to be IDENTITY columns. Databases created back then hold
+ * rows whose IDs a fresh sequence would hand out again, so every batch
+ * insert would fail on the primary key. Restarting the sequence above
+ * {@code max(id)} (plus one allocation block of the pooled optimizer)
+ * makes the switch safe for existing data; on a new database it is a no-op.
+ *
+ * Runs while the context starts, after Hibernate created the schema and
+ * before the web server accepts votes.
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+public class VoteSequenceSeeder {
+
+    /** Must match the {@code allocationSize} of {@code Vote.id}. */
+    private static final long ALLOCATION_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void seed() {
+        try {
+            Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM votes", Long.class);
+            long restartWith = (maxId != null ? maxId : 0L) + ALLOCATION_SIZE + 1;
+            // DDL takes no bind parameters; the value is a number read from the database
+            jdbcTemplate.execute("ALTER SEQUENCE votes_seq RESTART WITH " + restartWith);
+            log.info("🔢 votes_seq restarted at {} (max vote id {})", restartWith, maxId);
+        } catch (Exception e) {
+            log.warn("⚠️ Could not seed votes_seq past the existing vote IDs", e);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package org.bithub.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * In-memory list of the most recently played tracks of every session,
+ * newest first. Backs the cooldown checks so they do not query the
+ * played-songs table on every scheduler tick, and can be rebuilt from
+ * the {@link VoteJournal} after a restart.
+ */
+@Component
+public class CooldownTracker {
+
+    /** Number of recently played tracks that are kept in cooldown. */
+    public static final int COOLDOWN_SIZE = 3;
+
+    private final ConcurrentMap<String, LinkedList<String>> recent = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the cooldown tracks of a session, newest first.
+     *
+     * @param ownerId Spotify user/session ID
+     * @param loader  fallback used once per session when nothing is known yet
+     * @return copy of the recently played (normalized) track IDs
+     */
+    public List<String> recent(String ownerId, Function<String, List<String>> loader) {
+        LinkedList<String> tracks = tracks(ownerId, loader);
+        synchronized (tracks) {
+            return new ArrayList<>(tracks);
+        }
+    }
+
+    /**
+     * Records a played track as the newest cooldown entry of a session
+     * whose earlier cooldowns are already known (e.g. journal replay).
+     *
+     * @param ownerId Spotify user/session ID
+     * @param trackId Spotify track ID
+     * @return {@code false} if the track already was in cooldown
+     */
+    public boolean played(String ownerId, String trackId) {
+        return played(ownerId, trackId, id -> List.of());
+    }
+
+    /**
+     * Records a played track as the newest cooldown entry.
+     *
+     * @param ownerId Spotify user/session ID
+     * @param trackId Spotify track ID
+     * @param loader  fallback used once per session when nothing is known yet
+     * @return {@code false} if the track already was in cooldown
+     */
+    public boolean played(String ownerId, String trackId, Function<String, List<String>> loader) {
+        LinkedList<String> tracks = tracks(ownerId, loader);
+        String canonical = TrackIds.normalize(trackId);
+        synchronized (tracks) {
+            boolean known = tracks.remove(canonical);
+            tracks.addFirst(canonical);
+            while (tracks.size() > COOLDOWN_SIZE) {
+                tracks.removeLast();
+            }
+            return !known;
+        }
+    }
+
+    private LinkedList<String> tracks(String ownerId, Function<String, List<String>> loader) {
+        return recent.computeIfAbsent(ownerId, id -> {
+            LinkedList<String> seeded = new LinkedList<>();
+            loader.apply(id).forEach(trackId -> seeded.add(TrackIds.normalize(trackId)));
+            return seeded;
+        });
+    }
+}
@@ -0,0 +1,356 @@
+package org.bithub.service;
+
+import org.bithub.model.TrackScore;
+import org.bithub.model.TrackVote;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * InMemoryVoteTallyStore
+ * ------------------------------------------------------------------------
+ * In-memory vote counters for every active Jukebox session.
+ * Default {@link VoteTallyStore}, also used as the offline stand-in
+ * for {@link RedisVoteTallyStore}.
+ *
+ * Each session (keyed by ownerId) holds one concurrent counter per track
+ * together with the clients that voted for it, plus per-minute buckets of
+ * vote entries. The one-hour window slides by dropping whole buckets, so
+ * neither reads nor writes ever trigger expiry work. A per-session ranking
+ * index is updated in O(log n) on every count change, so rankings are read
+ * by iteration instead of sorting. Reads never touch the
+ * database; the votes table is only used as a durable log that is replayed
+ * on startup.
+ *
+ * Optional time decay ({@code jukebox.votes.decay.enabled}): a vote cast at
+ * time t is worth {@code exp(-λ(now - t))}. Each track keeps
+ * {@code log Σ exp(λ(tᵢ - t₀))} for a fixed epoch t₀, which only changes when
+ * a vote is added or expires and never overflows; the decayed score is
+ * {@code exp(logScore - λ(now - t₀))}. Since that factor is shared by all
+ * tracks, ordering by logScore is ordering by decayed score, so the decay
+ * ranking is maintained incrementally just like the count ranking.
+ */
+@Component
+@ConditionalOnProperty(name = "jukebox.votes.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryVoteTallyStore implements VoteTallyStore {
+
+    private final ConcurrentMap<String, SessionTally> sessions = new ConcurrentHashMap<>();
+
+    /** Decay rate λ per millisecond; {@code 0} when decay is disabled. */
+    private final double decayRate;
+    private final long decayEpoch = System.currentTimeMillis();
+
+    public InMemoryVoteTallyStore(@Value("${jukebox.votes.decay.enabled:false}") boolean decayEnabled,
+                                  @Value("${jukebox.votes.decay.half-life-minutes:15}") double halfLifeMinutes) {
+        this.decayRate = decayEnabled ? Math.log(2) / (halfLifeMinutes * 60_000) : 0;
+    }
+
+    @Override
+    public boolean record(String ownerId, String trackId, String clientId, LocalDateTime createdAt) {
+        boolean[] added = new boolean[1];
+        // compute() keeps this atomic with the release of empty sessions in expireBefore()
+        sessions.compute(ownerId, (id, current) -> {
+            SessionTally tally = current != null ? current : new SessionTally();
+            added[0] = tally.record(trackId, clientId, createdAt);
+            return tally;
+        });
+        return added[0];
+    }
+
+    @Override
+    public Map<String, Long> counts(String ownerId) {
+        SessionTally tally = sessions.get(ownerId);
+        return tally == null ? Collections.emptyMap() : tally.snapshot();
+    }
+
+    @Override
+    public List<TrackVote> ranked(String ownerId) {
+        SessionTally tally = sessions.get(ownerId);
+        return tally == null ? Collections.emptyList() : tally.ranked();
+    }
+
+    @Override
+    public List<TrackScore> decayed(String ownerId) {
+        if (decayRate == 0) return VoteTallyStore.super.decayed(ownerId);
+
+        SessionTally tally = sessions.get(ownerId);
+        return tally == null ? Collections.emptyList() : tally.decayed(decayRate * (System.currentTimeMillis() - decayEpoch));
+    }
+
+    @Override
+    public void resetTrack(String ownerId, String trackId) {
+        SessionTally tally = sessions.get(ownerId);
+        if (tally != null) {
+            tally.reset(trackId);
+        }
+    }
+
+    @Override
+    public Set<String> expireBefore(LocalDateTime threshold) {
+        Set<String> changed = new HashSet<>();
+        for (Map.Entry<String, SessionTally> entry : sessions.entrySet()) {
+            if (entry.getValue().expireBefore(threshold) > 0) {
+                changed.add(entry.getKey());
+            }
+            sessions.computeIfPresent(entry.getKey(), (id, tally) -> tally.isEmpty() ? null : tally);
+        }
+        return changed;
+    }
+
+    @Override
+    public void clear() {
+        sessions.clear();
+    }
+
+    @Override
+    public boolean requiresReplay() {
+        return true;
+    }
+
+
+    // --------------------------------------------------------------------
+    // Per-session state
+    // --------------------------------------------------------------------
+
+    /**
+     * Vote counters of a single session.
+     * <p>
+     * Every track holds its vote count and the set of clients that voted
+     * for it, which doubles as the O(1) duplicate-vote index. Votes are also
+     * appended to the bucket of the minute they were cast in. Each entry keeps
+     * a reference to the track tally it incremented, so expiring a vote for a
+     * track that has been reset in the meantime never touches the tally of
+     * newer votes.
+     * </p>
+     * <p>
+     * The ranking index holds one {@link Rank} per voted track, ordered by
+     * count (descending) and then by the stamp of the change that brought the
+     * track to its count, so ties go to the track that got there first.
+     * Ranks are replaced inside the {@code compute} call that changed the
+     * count, which serializes them with every other change of the same track.
+     * The swap itself happens under the session's write lock and readers
+     * iterate under its read lock, so a reader never sees a track twice or
+     * not at all. With decay enabled, the same ranks are also kept in a
+     * second index ordered by log-domain score.
+     * </p>
+     */
+    private final class SessionTally {
+
+        private final ConcurrentMap<String, TrackTally> tracks = new ConcurrentHashMap<>();
+        private final ConcurrentSkipListMap<LocalDateTime, Queue<Entry>> buckets = new ConcurrentSkipListMap<>();
+        private final NavigableSet<Rank> ranking = new TreeSet<>(Rank.ORDER);
+        private final NavigableSet<Rank> decayRanking = new TreeSet<>(Rank.DECAY_ORDER);
+        /** Guards both ranking indexes; held only for the swap of a rank or one pass over an index. */
+        private final ReadWriteLock rankingLock = new ReentrantReadWriteLock();
+        private final AtomicLong stamps = new AtomicLong();
+
+        private record Entry(TrackTally tally, String clientId, double logWeight) {}
+
+        boolean record(String trackId, String clientId, LocalDateTime createdAt) {
+            double logWeight = decayRate == 0 ? 0
+                    : decayRate * (createdAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() - decayEpoch);
+            boolean[] added = new boolean[1];
+            TrackTally tally = tracks.compute(TrackIds.normalize(trackId), (id, current) -> {
+                TrackTally t = current != null ? current : new TrackTally(id);
+                added[0] = t.add(clientId);
+                if (added[0]) {
+                    if (decayRate != 0) t.logScore = logAddExp(t.logScore, logWeight);
+                    rerank(t);
+                }
+                return t;
+            });
+            if (added[0]) {
+                buckets.computeIfAbsent(createdAt.truncatedTo(ChronoUnit.MINUTES), m -> new ConcurrentLinkedQueue<>())
+                        .add(new Entry(tally, clientId, logWeight));
+            }
+            return added[0];
+        }
+
+        void reset(String trackId) {
+            tracks.computeIfPresent(TrackIds.normalize(trackId), (id, tally) -> {
+                if (tally.rank != null) {
+                    rankingLock.writeLock().lock();
+                    try {
+                        ranking.remove(tally.rank);
+                        decayRanking.remove(tally.rank);
+                    } finally {
+                        rankingLock.writeLock().unlock();
+                    }
+                }
+                return null;
+            });
+        }
+
+        /**
+         * Slides the window: drops every bucket whose minute lies entirely
+         * before the threshold and takes its votes off the track tallies.
+         */
+        synchronized int expireBefore(LocalDateTime threshold) {
+            LocalDateTime cutoff = threshold.truncatedTo(ChronoUnit.MINUTES);
+            int expired = 0;
+
+            Map.Entry<LocalDateTime, Queue<Entry>> bucket;
+            while ((bucket = buckets.firstEntry()) != null && bucket.getKey().isBefore(cutoff)) {
+                buckets.remove(bucket.getKey());
+                for (Entry entry : bucket.getValue()) {
+                    tracks.computeIfPresent(entry.tally().trackId, (id, tally) -> {
+                        if (tally != entry.tally()) return tally;
+                        boolean remaining = tally.remove(entry.clientId());
+                        if (decayRate != 0) {
+                            tally.logScore = remaining ? logSubExp(tally.logScore, entry.logWeight()) : Double.NEGATIVE_INFINITY;
+                        }
+                        rerank(tally);
+                        return remaining ? tally : null;
+                    });
+                    expired++;
+                }
+            }
+            return expired;
+        }
+
+        /**
+         * Replaces the rank of a track after its count changed.
+         */
+        private void rerank(TrackTally tally) {
+            Rank previous = tally.rank;
+            long votes = tally.votes.get();
+            Rank next = votes > 0 ? new Rank(tally.trackId, votes, tally.logScore, stamps.incrementAndGet()) : null;
+
+            rankingLock.writeLock().lock();
+            try {
+                if (previous != null) {
+                    ranking.remove(previous);
+                    decayRanking.remove(previous);
+                }
+                if (next != null) {
+                    ranking.add(next);
+                    if (decayRate != 0) decayRanking.add(next);
+                }
+            } finally {
+                rankingLock.writeLock().unlock();
+            }
+            tally.rank = next;
+        }
+
+        List<TrackVote> ranked() {
+            rankingLock.readLock().lock();
+            try {
+                List<TrackVote> result = new ArrayList<>(ranking.size());
+                for (Rank rank : ranking) {
+                    result.add(new TrackVote(rank.trackId(), rank.votes()));
+                }
+                return result;
+            } finally {
+                rankingLock.readLock().unlock();
+            }
+        }
+
+        /**
+         * @param logNow {@code λ(now - t₀)}, the log of the shared decay factor
+         */
+        List<TrackScore> decayed(double logNow) {
+            rankingLock.readLock().lock();
+            try {
+                List<TrackScore> result = new ArrayList<>(decayRanking.size());
+                for (Rank rank : decayRanking) {
+                    result.add(new TrackScore(rank.trackId(), rank.votes(), Math.exp(rank.logScore() - logNow)));
+                }
+                return result;
+            } finally {
+                rankingLock.readLock().unlock();
+            }
+        }
+
+        boolean isEmpty() {
+            return tracks.isEmpty() && buckets.isEmpty();
+        }
+
+        Map<String, Long> snapshot() {
+            Map<String, Long> result = new HashMap<>();
+            tracks.forEach((trackId, tally) -> {
+                long count = tally.votes.get();
+                if (count > 0) result.put(trackId, count);
+            });
+            return result;
+        }
+    }
+
+    /**
+     * Position of a track in the ranking indexes; stamps are unique per session.
+     */
+    private record Rank(String trackId, long votes, double logScore, long stamp) {
+
+        static final Comparator<Rank> ORDER = Comparator.comparingLong(Rank::votes).reversed()
+                .thenComparingLong(Rank::stamp);
+
+        static final Comparator<Rank> DECAY_ORDER = Comparator.comparingDouble(Rank::logScore).reversed()
+                .thenComparingLong(Rank::stamp);
+    }
+
+    /** {@code log(exp(a) + exp(b))} without leaving the log domain. */
+    private static double logAddExp(double a, double b) {
+        if (a == Double.NEGATIVE_INFINITY) return b;
+        return Math.max(a, b) + Math.log1p(Math.exp(-Math.abs(a - b)));
+    }
+
+    /** {@code log(exp(a) - exp(b))} for {@code b <= a}; {@code -∞} once nothing is left. */
+    private static double logSubExp(double a, double b) {
+        if (b >= a) return Double.NEGATIVE_INFINITY;
+        return a + Math.log1p(-Math.exp(b - a));
+    }
+
+    /**
+     * Vote count and voters of a single track.
+     * Mutated only inside {@code compute}-style calls on the owning map.
+     */
+    private static final class TrackTally {
+
+        /** Canonical track ID, the same instance as the map key; shared with rank and bucket entries. */
+        private final String trackId;
+        private final AtomicLong votes = new AtomicLong();
+        private final Set<String> voters = ConcurrentHashMap.newKeySet();
+        private volatile Rank rank;
+        /** {@code log Σ exp(λ(tᵢ - t₀))} over the active votes; only used with decay enabled. */
+        private double logScore = Double.NEGATIVE_INFINITY;
+
+        TrackTally(String trackId) {
+            this.trackId = trackId;
+        }
+
+        boolean add(String clientId) {
+            if (!voters.add(clientId)) return false;
+            votes.incrementAndGet();
+            return true;
+        }
+
+        /** @return {@code true} while the track still has votes left */
+        boolean remove(String clientId) {
+            if (voters.remove(clientId)) {
+                votes.decrementAndGet();
+            }
+            return votes.get() > 0;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package org.bithub.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * NowPlayingCache
+ * ------------------------------------------------------------------------
+ * Per-owner cache of Spotify's currently-playing answer, shared by the
+ * guests polling now-playing and by the playlist/queue updates.
+ *
+ * An answer for a playing track stays valid until that track is expected
+ * to end ({@code duration_ms - progress_ms}, plus
+ * {@code jukebox.now-playing.end-grace-ms}), but never longer than
+ * {@code jukebox.now-playing.max-ttl-ms}, so skips and pauses are still
+ * noticed. Idle playback is re-checked every {@code jukebox.now-playing.idle-ttl-ms}.
+ * Served copies carry a {@code progress_ms} advanced by the time since the fetch.
+ *
+ * Concurrent misses for the same owner share one upstream call.
+ *
+ * Metrics:
+ *   • jukebox.nowplaying.cache (counter, tag result)  hit / miss / coalesced lookups
+ */
+@Slf4j
+@Component
+public class NowPlayingCache {
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CompletableFuture<Entry>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter coalesced;
+
+    @Value("${jukebox.now-playing.max-ttl-ms:15000}")
+    private long maxTtlMillis;
+
+    @Value("${jukebox.now-playing.idle-ttl-ms:5000}")
+    private long idleTtlMillis;
+
+    @Value("${jukebox.now-playing.end-grace-ms:500}")
+    private long endGraceMillis;
+
+    public NowPlayingCache(MeterRegistry meterRegistry) {
+        this.hits = counter(meterRegistry, "hit");
+        this.misses = counter(meterRegistry, "miss");
+        this.coalesced = counter(meterRegistry, "coalesced");
+    }
+
+    private record Entry(Map<String, Object> body, long fetchedAt, long expiresAt) {}
+
+    /**
+     * Returns the owner's now-playing answer, calling {@code loader} only
+     * when the cached one has expired.
+     *
+     * @param ownerId Spotify user/session ID
+     * @param loader  fetches the answer from Spotify; exceptions reach every waiting caller
+     * @return the answer, with {@code progress_ms} brought up to date
+     */
+    public Map<String, Object> get(String ownerId, Supplier<Map<String, Object>> loader) {
+        Entry entry = entries.get(ownerId);
+        if (entry != null && System.nanoTime() < entry.expiresAt()) {
+            hits.increment();
+            return served(entry);
+        }
+
+        CompletableFuture<Entry> fetch = new CompletableFuture<>();
+        CompletableFuture<Entry> running = inFlight.putIfAbsent(ownerId, fetch);
+        if (running != null) {
+            coalesced.increment();
+            try {
+                return served(running.join());
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException re ? re : e;
+            }
+        }
+
+        misses.increment();
+        try {
+            Map<String, Object> body = loader.get();
+            long now = System.nanoTime();
+            Entry fetched = new Entry(body, now, now + TimeUnit.MILLISECONDS.toNanos(ttlMillis(body)));
+            entries.put(ownerId, fetched);
+            fetch.complete(fetched);
+            return served(fetched);
+        } catch (RuntimeException e) {
+            fetch.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(ownerId, fetch);
+        }
+    }
+
+    /**
+     * @param ownerId Spotify user/session ID
+     * @return the last answer fetched for the owner, even if expired, or {@code null}
+     */
+    public Map<String, Object> lastKnown(String ownerId) {
+        Entry entry = entries.get(ownerId);
+        return entry != null ? served(entry) : null;
+    }
+
+    /**
+     * Drops the owner's answer, e.g. after we changed the playback ourselves.
+     *
+     * @param ownerId Spotify user/session ID
+     */
+    public void invalidate(String ownerId) {
+        entries.remove(ownerId);
+    }
+
+    private long ttlMillis(Map<String, Object> body) {
+        if (!Boolean.TRUE.equals(body.get("is_playing"))) return idleTtlMillis;
+
+        long progress = number(body.get("progress_ms"));
+        long duration = body.get("item") instanceof Map<?, ?> item ? number(item.get("duration_ms")) : 0;
+        if (duration <= 0) return idleTtlMillis;
+
+        long untilEnd = Math.max(duration - progress, 0) + endGraceMillis;
+        return Math.min(untilEnd, maxTtlMillis);
+    }
+
+    private static Map<String, Object> served(Entry entry) {
+        Map<String, Object> body = entry.body();
+        if (!Boolean.TRUE.equals(body.get("is_playing")) || !(body.get("progress_ms") instanceof Number progress)) {
+            return body;
+        }
+
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - entry.fetchedAt());
+        long duration = body.get("item") instanceof Map<?, ?> item ? number(item.get("duration_ms")) : 0;
+        if (duration <= 0) duration = Long.MAX_VALUE;
+        Map<String, Object> copy = new LinkedHashMap<>(body);
+        copy.put("progress_ms", Math.min(progress.longValue() + elapsed, duration));
+        return copy;
+    }
+
+    private static long number(Object value) {
+        return value instanceof Number n ? n.longValue() : 0;
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("jukebox.nowplaying.cache")
+                .tag("result", result)
+                .description("Now-playing lookups by cache result")
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,141 @@
+package org.bithub.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PlaylistOrderFingerprints
+ * ------------------------------------------------------------------------
+ * Remembers, per session, what the last playlist update was based on and
+ * what order it left behind, so {@code SpotifyService#updateJukeboxPlaylist}
+ * can skip cycles in which nothing changed.
+ *
+ * An update is unchanged when, compared to the last completed one:
+ *   • the session's vote epoch ({@link VoteService#getVoteEpoch}) is the same
+ *   • the same track is playing
+ *   • the cached playlist still has the snapshot we wrote (or validated)
+ * Anything Spotify-side we cannot see locally (edits of the playlist in the
+ * Spotify app, votes counted by other nodes on a shared store) is picked up
+ * by a full cycle at least every {@code jukebox.playlist-update.full-cycle-interval-ms}.
+ *
+ * The order itself is kept as a 64-bit FNV-1a fingerprint of the URIs'
+ * characters, so a full cycle that arrives at the order already in the
+ * playlist does not plan or write.
+ *
+ * Metrics:
+ *   • jukebox.playlist.update (counter, tag result)  skipped / unchanged-order / written cycles
+ */
+@Component
+public class PlaylistOrderFingerprints {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final Counter skipped;
+    private final Counter unchangedOrder;
+    private final Counter written;
+
+    @Value("${jukebox.playlist-update.full-cycle-interval-ms:60000}")
+    private long fullCycleIntervalMillis;
+
+    public PlaylistOrderFingerprints(MeterRegistry meterRegistry) {
+        this.skipped = counter(meterRegistry, "skipped");
+        this.unchangedOrder = counter(meterRegistry, "unchanged-order");
+        this.written = counter(meterRegistry, "written");
+    }
+
+    private record Entry(long voteEpoch, String currentTrackId, String snapshotId, long fingerprint, long updatedAt) {}
+
+    /**
+     * @param ownerId        Spotify user/session ID
+     * @param voteEpoch      the session's current vote epoch
+     * @param currentTrackId ID of the playing track, or {@code null}
+     * @param snapshotId     snapshot of the cached playlist tracks, or {@code null}
+     * @return whether the last update was based on the same state and is recent enough to skip this one
+     */
+    public boolean unchanged(String ownerId, long voteEpoch, String currentTrackId, String snapshotId) {
+        Entry entry = entries.get(ownerId);
+        if (entry == null
+                || entry.voteEpoch() != voteEpoch
+                || !Objects.equals(entry.currentTrackId(), currentTrackId)
+                || snapshotId == null || !snapshotId.equals(entry.snapshotId())
+                || System.nanoTime() - entry.updatedAt() > TimeUnit.MILLISECONDS.toNanos(fullCycleIntervalMillis)) {
+            return false;
+        }
+        skipped.increment();
+        return true;
+    }
+
+    /**
+     * @param ownerId    Spotify user/session ID
+     * @param snapshotId snapshot of the cached playlist tracks, or {@code null}
+     * @param uris       the wanted order of the playlist
+     * @return whether that order is the one last written, on the same snapshot
+     */
+    public boolean isWritten(String ownerId, String snapshotId, List<String> uris) {
+        Entry entry = entries.get(ownerId);
+        boolean same = entry != null && snapshotId != null && snapshotId.equals(entry.snapshotId())
+                && entry.fingerprint() == fingerprint(uris);
+        if (same) unchangedOrder.increment();
+        return same;
+    }
+
+    /**
+     * Records a completed update.
+     *
+     * @param ownerId        Spotify user/session ID
+     * @param voteEpoch      the vote epoch read before the update started
+     * @param currentTrackId ID of the playing track, or {@code null}
+     * @param snapshotId     snapshot of the playlist after the update ({@code null} records nothing)
+     * @param uris           the playlist's order after the update
+     * @param changed        whether the update wrote to the playlist
+     */
+    public void record(String ownerId, long voteEpoch, String currentTrackId, String snapshotId,
+                       List<String> uris, boolean changed) {
+        if (snapshotId == null) {
+            entries.remove(ownerId);
+            return;
+        }
+        if (changed) written.increment();
+        entries.put(ownerId, new Entry(voteEpoch, currentTrackId, snapshotId, fingerprint(uris), System.nanoTime()));
+    }
+
+    /**
+     * 64-bit FNV-1a over every character of every URI. Each URI is closed by
+     * a separator that cannot occur in a URI, so neither swapped tracks nor
+     * text moving across a URI boundary end up with the same value.
+     */
+    static long fingerprint(List<String> uris) {
+        long hash = FNV_OFFSET_BASIS;
+        for (String uri : uris) {
+            if (uri != null) {
+                for (int i = 0; i < uri.length(); i++) {
+                    hash = mix(mix(hash, uri.charAt(i) >>> 8), uri.charAt(i) & 0xff);
+                }
+            }
+            hash = mix(mix(hash, 0xff), 0xff);
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, int octet) {
+        return (hash ^ octet) * FNV_PRIME;
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("jukebox.playlist.update")
+                .tag("result", result)
+                .description("Playlist update cycles by outcome")
+                .register(meterRegistry);
+    }
+}
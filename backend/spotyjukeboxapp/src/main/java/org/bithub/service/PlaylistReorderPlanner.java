@@ -0,0 +1,142 @@
+package org.bithub.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * PlaylistReorderPlanner
+ * ------------------------------------------------------------------------
+ * Turns a playlist's current order into a target order with as few
+ * Spotify reorder operations ({@code range_start} / {@code range_length} /
+ * {@code insert_before}) as possible.
+ *
+ * The tracks on a longest increasing subsequence of target positions
+ * (taken in current order) are already in the right relative order and
+ * stay where they are. Every other track is moved directly behind its
+ * predecessor in the target order, in target order; runs of such tracks
+ * that already sit next to each other are moved as one range. When only a
+ * few tracks changed places, only those few are touched.
+ */
+public final class PlaylistReorderPlanner {
+
+    private PlaylistReorderPlanner() {
+    }
+
+    /**
+     * One reorder operation, with positions as Spotify expects them: relative
+     * to the playlist as it is before the operation.
+     *
+     * @param rangeStart   position of the first track to move
+     * @param rangeLength  number of tracks to move
+     * @param insertBefore position the tracks are moved in front of
+     */
+    public record Move(int rangeStart, int rangeLength, int insertBefore) {}
+
+    /**
+     * Plans the moves that turn {@code current} into {@code target}.
+     * Repeated URIs are matched in order of appearance.
+     *
+     * @param current track URIs in their current order
+     * @param target  the same URIs in the wanted order
+     * @return the moves to apply in order (empty if the orders match), or
+     *         {@code null} if {@code target} is not a permutation of {@code current}
+     */
+    public static List<Move> plan(List<String> current, List<String> target) {
+        int n = current.size();
+        if (target.size() != n) return null;
+
+        Map<String, Deque<Integer>> targetPositions = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            targetPositions.computeIfAbsent(target.get(i), k -> new ArrayDeque<>()).add(i);
+        }
+
+        // work[p] = target position (rank) of the track at position p; pos is the inverse
+        int[] work = new int[n];
+        int[] pos = new int[n];
+        for (int p = 0; p < n; p++) {
+            Deque<Integer> ranks = targetPositions.get(current.get(p));
+            if (ranks == null || ranks.isEmpty()) return null;
+            work[p] = ranks.poll();
+            pos[work[p]] = p;
+        }
+
+        boolean[] stable = longestIncreasingRanks(work);
+
+        List<Move> moves = new ArrayList<>();
+        for (int rank = 0; rank < n; ) {
+            if (stable[rank]) {
+                rank++;
+                continue;
+            }
+
+            int start = pos[rank];
+            int length = 1;
+            while (rank + length < n && !stable[rank + length] && pos[rank + length] == start + length) {
+                length++;
+            }
+
+            int insertBefore = rank == 0 ? 0 : pos[rank - 1] + 1;
+            if (insertBefore < start || insertBefore > start + length) {
+                moves.add(new Move(start, length, insertBefore));
+                apply(work, pos, start, length, insertBefore);
+            }
+            rank += length;
+        }
+        return moves;
+    }
+
+    /**
+     * @return flags, indexed by rank, of the tracks on one longest increasing subsequence of {@code work}
+     */
+    private static boolean[] longestIncreasingRanks(int[] work) {
+        int n = work.length;
+        int[] tails = new int[n];         // tails[k] = position ending the best subsequence of length k + 1
+        int[] previous = new int[n];
+        int length = 0;
+
+        for (int p = 0; p < n; p++) {
+            int lo = 0, hi = length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (work[tails[mid]] < work[p]) lo = mid + 1; else hi = mid;
+            }
+            previous[p] = lo > 0 ? tails[lo - 1] : -1;
+            tails[lo] = p;
+            if (lo == length) length++;
+        }
+
+        boolean[] stable = new boolean[n];
+        for (int p = length > 0 ? tails[length - 1] : -1; p >= 0; p = previous[p]) {
+            stable[work[p]] = true;
+        }
+        return stable;
+    }
+
+    /**
+     * Applies a move to the simulated playlist.
+     */
+    private static void apply(int[] work, int[] pos, int start, int length, int insertBefore) {
+        int[] block = new int[length];
+        System.arraycopy(work, start, block, 0, length);
+
+        int to;
+        if (insertBefore < start) {
+            System.arraycopy(work, insertBefore, work, insertBefore + length, start - insertBefore);
+            to = insertBefore;
+        } else {
+            System.arraycopy(work, start + length, work, start, insertBefore - start - length);
+            to = insertBefore - length;
+        }
+        System.arraycopy(block, 0, work, to, length);
+
+        int from = Math.min(start, to);
+        int until = Math.max(start, to) + length;
+        for (int p = from; p < until; p++) {
+            pos[work[p]] = p;
+        }
+    }
+}
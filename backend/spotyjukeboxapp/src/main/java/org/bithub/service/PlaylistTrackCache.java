@@ -0,0 +1,166 @@
+package org.bithub.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bithub.model.SpotifyTrack;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PlaylistTrackCache
+ * ------------------------------------------------------------------------
+ * Per-playlist cache of track lists, validated against the playlist's
+ * Spotify {@code snapshot_id}.
+ *
+ * A cached list is served without asking Spotify for
+ * {@code jukebox.playlist-cache.check-interval-ms} after it was last
+ * validated. After that, a cheap {@code fields=snapshot_id} lookup decides:
+ * an unchanged snapshot revalidates the list, a new one means a full fetch.
+ * Our own rewrites and reorders (see {@code SpotifyService#replacePlaylistTracks}) are
+ * applied to the cached list together with the snapshot they produced, so
+ * they never cause a refetch.
+ *
+ * Tracks are immutable {@link SpotifyTrack} records, so cached lists are
+ * shared with callers instead of copied.
+ *
+ * Metrics:
+ *   • jukebox.playlist.cache (counter, tag result)  hit / revalidated / miss lookups
+ */
+@Component
+public class PlaylistTrackCache {
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter revalidated;
+    private final Counter misses;
+
+    @Value("${jukebox.playlist-cache.check-interval-ms:5000}")
+    private long checkIntervalMillis;
+
+    public PlaylistTrackCache(MeterRegistry meterRegistry) {
+        this.hits = counter(meterRegistry, "hit");
+        this.revalidated = counter(meterRegistry, "revalidated");
+        this.misses = counter(meterRegistry, "miss");
+    }
+
+    private record Entry(String snapshotId, List<SpotifyTrack> tracks, long checkedAt) {}
+
+    /**
+     * @param playlistId Spotify playlist ID
+     * @return the cached tracks if they were validated recently, otherwise {@code null}
+     */
+    public List<SpotifyTrack> fresh(String playlistId) {
+        Entry entry = entries.get(playlistId);
+        if (entry == null || System.nanoTime() - entry.checkedAt() > TimeUnit.MILLISECONDS.toNanos(checkIntervalMillis)) {
+            return null;
+        }
+        hits.increment();
+        return entry.tracks();
+    }
+
+    /**
+     * Checks the cached tracks against the playlist's current snapshot.
+     *
+     * @param playlistId Spotify playlist ID
+     * @param snapshotId the playlist's current {@code snapshot_id}
+     * @return the cached tracks if they belong to that snapshot, otherwise {@code null}
+     */
+    public List<SpotifyTrack> validate(String playlistId, String snapshotId) {
+        Entry entry = entries.get(playlistId);
+        if (entry == null || snapshotId == null || !snapshotId.equals(entry.snapshotId())) {
+            misses.increment();
+            return null;
+        }
+        entries.replace(playlistId, entry, new Entry(snapshotId, entry.tracks(), System.nanoTime()));
+        revalidated.increment();
+        return entry.tracks();
+    }
+
+    /**
+     * Caches freshly fetched tracks.
+     *
+     * @param playlistId Spotify playlist ID
+     * @param snapshotId snapshot the tracks were fetched for ({@code null} caches nothing)
+     * @param tracks     the playlist's tracks
+     */
+    public void put(String playlistId, String snapshotId, List<SpotifyTrack> tracks) {
+        if (snapshotId == null) return;
+        entries.put(playlistId, new Entry(snapshotId, List.copyOf(tracks), System.nanoTime()));
+    }
+
+    /**
+     * Applies a rewrite of the playlist made by us: the cached tracks are
+     * reordered to {@code uris} and tagged with the resulting snapshot.
+     * If a URI is not in the cached list, the entry is dropped instead.
+     *
+     * @param playlistId Spotify playlist ID
+     * @param snapshotId snapshot returned by Spotify for the rewrite
+     * @param uris       the playlist's track URIs after the rewrite, in order
+     */
+    public void written(String playlistId, String snapshotId, List<String> uris) {
+        Entry entry = entries.get(playlistId);
+        if (entry == null || snapshotId == null) {
+            entries.remove(playlistId);
+            return;
+        }
+
+        Map<String, Deque<SpotifyTrack>> byUri = new HashMap<>();
+        entry.tracks().forEach(t -> byUri.computeIfAbsent(t.uri(), k -> new ArrayDeque<>()).add(t));
+
+        List<SpotifyTrack> reordered = new ArrayList<>(uris.size());
+        for (String uri : uris) {
+            Deque<SpotifyTrack> matches = byUri.get(uri);
+            if (matches == null || matches.isEmpty()) {
+                entries.remove(playlistId);
+                return;
+            }
+            reordered.add(matches.poll());
+        }
+        entries.put(playlistId, new Entry(snapshotId, List.copyOf(reordered), System.nanoTime()));
+    }
+
+    /**
+     * @param playlistId Spotify playlist ID
+     * @return the last cached tracks, however old, or {@code null}
+     */
+    public List<SpotifyTrack> lastKnown(String playlistId) {
+        Entry entry = entries.get(playlistId);
+        return entry != null ? entry.tracks() : null;
+    }
+
+    /**
+     * @param playlistId Spotify playlist ID
+     * @return the snapshot the cached tracks belong to, or {@code null}
+     */
+    public String snapshotId(String playlistId) {
+        Entry entry = entries.get(playlistId);
+        return entry != null ? entry.snapshotId() : null;
+    }
+
+    /**
+     * Drops the cached tracks of a playlist.
+     *
+     * @param playlistId Spotify playlist ID
+     */
+    public void invalidate(String playlistId) {
+        entries.remove(playlistId);
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("jukebox.playlist.cache")
+                .tag("result", result)
+                .description("Playlist track lookups by cache result")
+                .register(meterRegistry);
+    }
+}
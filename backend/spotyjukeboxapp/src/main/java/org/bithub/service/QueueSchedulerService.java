@@ -13,7 +13,9 @@ import java.util.List;
  *
  * <p>This scheduler runs at fixed intervals and ensures that
  * active sessions reflect the latest vote results in their
- * Spotify playlists.</p>
+ * Spotify playlists. Sessions are updated concurrently on virtual
+ * threads (see {@link SpotifyGateway}), so one slow session does not
+ * delay the others.</p>
  */
 @Service
 @RequiredArgsConstructor
@@ -21,6 +23,7 @@ public class QueueSchedulerService {
 
     private final UserService userService;
     private final SpotifyService spotifyService;
+    private final SpotifyGateway spotifyGateway;
 
     /**
      * Periodically updates Jukebox playlists for all active users.
@@ -42,14 +45,16 @@ public class QueueSchedulerService {
 
             System.out.println("🔄 Updating jukebox playlists for " + activeUsers.size() + " users...");
 
-            for (UserInfo user : activeUsers) {
-                try {
-                    spotifyService.updateJukeboxPlaylist(user);
-                } catch (Exception e) {
-                    System.err.println("❌ Failed to update playlist for user: " + user.getSpotifyUserId());
-                    e.printStackTrace();
-                }
-            }
+            spotifyGateway.runInBackground(activeUsers.stream()
+                    .map(user -> (Runnable) () -> {
+                        try {
+                            spotifyService.updateJukeboxPlaylist(user);
+                        } catch (Exception e) {
+                            System.err.println("❌ Failed to update playlist for user: " + user.getSpotifyUserId());
+                            e.printStackTrace();
+                        }
+                    })
+                    .toList());
 
             System.out.println("✅ Jukebox playlist update cycle completed successfully.");
 
@@ -0,0 +1,214 @@
+package org.bithub.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bithub.model.TrackVote;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * RedisVoteTallyStore
+ * ------------------------------------------------------------------------
+ * Keeps the vote tallies of every session in Redis so that all nodes
+ * share the same ranking. Enabled with {@code jukebox.votes.store=redis}.
+ *
+ * Keys (the {@code {ownerId}} hash tag keeps a session's keys in one Redis Cluster slot):
+ *   • jukebox:votes:{ownerId}           sorted set trackId → vote count
+ *   • jukebox:votes:{ownerId}:timeline  sorted set "trackId|clientId" → createdAt (epoch ms)
+ *   • jukebox:votes:{ownerId}:voters    sorted set "trackId|clientId", all scored 0 (by track, lexically)
+ *   • jukebox:votes:sessions            set of ownerIds with live votes
+ *
+ * Votes are counted with ZINCRBY and ranked with ZREVRANGE, so both
+ * writes and ranking reads are O(log n). The timeline doubles as the
+ * duplicate-vote index: ZADD NX on "trackId|clientId" claims the vote.
+ * The voters index holds the same members in lexical order, so a reset
+ * finds the voters of one track with ZRANGEBYLEX instead of scanning
+ * the whole session.
+ *
+ * Every write touches a session's keys together, so each one is a Lua
+ * script: one round trip, applied atomically. A voter can no longer be
+ * claimed without being counted, and a reset cannot interleave with a
+ * vote for the same track. The sessions set lives in another slot and is
+ * updated outside the scripts: a session is added after each counted vote,
+ * and re-added if a vote arrived while expiry removed it.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "jukebox.votes.store", havingValue = "redis")
+public class RedisVoteTallyStore implements VoteTallyStore {
+
+    private static final String KEY_PREFIX = "jukebox:votes:";
+    private static final String SESSIONS_KEY = KEY_PREFIX + "sessions";
+
+    /** KEYS: timeline, tally, voters. ARGV: voter, createdAt, trackId. Returns 1 if counted. */
+    private static final RedisScript<Long> RECORD = RedisScript.of("""
+            if redis.call('ZADD', KEYS[1], 'NX', ARGV[2], ARGV[1]) == 0 then
+              return 0
+            end
+            redis.call('ZADD', KEYS[3], 0, ARGV[1])
+            redis.call('ZINCRBY', KEYS[2], 1, ARGV[3])
+            return 1
+            """, Long.class);
+
+    /** KEYS: timeline, tally, voters. ARGV: trackId. Returns the number of votes removed. */
+    private static final RedisScript<Long> RESET_TRACK = RedisScript.of("""
+            local unpack = table.unpack or unpack
+            redis.call('ZREM', KEYS[2], ARGV[1])
+            -- '|' is followed by '}' in ASCII: the range holds exactly the "trackId|..." members
+            local voters = redis.call('ZRANGEBYLEX', KEYS[3], '[' .. ARGV[1] .. '|', '(' .. ARGV[1] .. '}')
+            for i = 1, #voters, 500 do
+              local last = math.min(i + 499, #voters)
+              redis.call('ZREM', KEYS[1], unpack(voters, i, last))
+              redis.call('ZREM', KEYS[3], unpack(voters, i, last))
+            end
+            return #voters
+            """, Long.class);
+
+    /**
+     * KEYS: timeline, tally, voters. ARGV: cutoff (epoch ms, exclusive).
+     * Returns the number of expired votes and the number of votes left.
+     */
+    private static final RedisScript<List> EXPIRE = RedisScript.of("""
+            local cutoff = '(' .. ARGV[1]
+            local stale = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', cutoff)
+            for _, member in ipairs(stale) do
+              local track = string.sub(member, 1, string.find(member, '|', 1, true) - 1)
+              redis.call('ZINCRBY', KEYS[2], -1, track)
+              redis.call('ZREM', KEYS[3], member)
+            end
+            if #stale > 0 then
+              redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', cutoff)
+            end
+            redis.call('ZREMRANGEBYSCORE', KEYS[2], '-inf', 0)
+            return {#stale, redis.call('ZCARD', KEYS[1])}
+            """, List.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    @Override
+    public boolean record(String ownerId, String trackId, String clientId, LocalDateTime createdAt) {
+        // ZADD NX claims the (track, client) slot across nodes; the count follows in the same script
+        Long counted = redisTemplate.execute(RECORD, sessionKeys(ownerId),
+                voterKey(trackId, clientId), Long.toString(toEpochMillis(createdAt)), trackId);
+        if (counted == null || counted != 1) return false;
+
+        // After the vote, so a concurrent expiry of the session's last vote sees it (see expireBefore)
+        redisTemplate.opsForSet().add(SESSIONS_KEY, ownerId);
+        return true;
+    }
+
+    @Override
+    public Map<String, Long> counts(String ownerId) {
+        Map<String, Long> result = new LinkedHashMap<>();
+        ranked(ownerId).forEach(tv -> result.put(tv.trackId(), tv.votes()));
+        return result;
+    }
+
+    @Override
+    public List<TrackVote> ranked(String ownerId) {
+        Set<ZSetOperations.TypedTuple<String>> tuples =
+                redisTemplate.opsForZSet().reverseRangeWithScores(tallyKey(ownerId), 0, -1);
+        if (tuples == null || tuples.isEmpty()) return Collections.emptyList();
+
+        List<TrackVote> result = new ArrayList<>(tuples.size());
+        for (ZSetOperations.TypedTuple<String> tuple : tuples) {
+            long votes = tuple.getScore() == null ? 0 : tuple.getScore().longValue();
+            if (votes > 0) result.add(new TrackVote(tuple.getValue(), votes));
+        }
+        return result;
+    }
+
+    @Override
+    public void resetTrack(String ownerId, String trackId) {
+        // The timeline entries of the track go too, so they are not expired twice
+        redisTemplate.execute(RESET_TRACK, sessionKeys(ownerId), trackId);
+    }
+
+    @Override
+    public Set<String> expireBefore(LocalDateTime threshold) {
+        Set<String> owners = redisTemplate.opsForSet().members(SESSIONS_KEY);
+        if (owners == null) return Collections.emptySet();
+
+        String cutoff = Long.toString(toEpochMillis(threshold));
+        Set<String> changed = new HashSet<>();
+        long expired = 0;
+
+        for (String ownerId : owners) {
+            // One script per session: nodes expiring concurrently cannot decrement a vote twice
+            List<?> result = redisTemplate.execute(EXPIRE, sessionKeys(ownerId), cutoff);
+            if (result == null || result.size() < 2) continue;
+
+            long removed = ((Number) result.get(0)).longValue();
+            if (removed > 0) {
+                changed.add(ownerId);
+                expired += removed;
+            }
+            if (((Number) result.get(1)).longValue() == 0) {
+                redisTemplate.opsForSet().remove(SESSIONS_KEY, ownerId);
+                // A vote counted meanwhile may have been added before the removal: keep its session
+                Long left = redisTemplate.opsForZSet().zCard(timelineKey(ownerId));
+                if (left != null && left > 0) redisTemplate.opsForSet().add(SESSIONS_KEY, ownerId);
+            }
+        }
+
+        if (expired > 0) {
+            log.debug("🧹 Expired {} votes from Redis tallies.", expired);
+        }
+        return changed;
+    }
+
+    @Override
+    public void clear() {
+        Set<String> owners = redisTemplate.opsForSet().members(SESSIONS_KEY);
+        if (owners != null) {
+            owners.forEach(ownerId -> redisTemplate.delete(sessionKeys(ownerId)));
+        }
+        redisTemplate.delete(SESSIONS_KEY);
+    }
+
+    @Override
+    public boolean requiresReplay() {
+        return false;
+    }
+
+    /**
+     * @return timeline, tally and voters key of a session, in the order the scripts expect
+     */
+    private static List<String> sessionKeys(String ownerId) {
+        return List.of(timelineKey(ownerId), tallyKey(ownerId), votersKey(ownerId));
+    }
+
+    private static String tallyKey(String ownerId) {
+        return KEY_PREFIX + "{" + ownerId + "}";
+    }
+
+    private static String voterKey(String trackId, String clientId) {
+        return trackId + "|" + clientId;
+    }
+
+    private static String timelineKey(String ownerId) {
+        return tallyKey(ownerId) + ":timeline";
+    }
+
+    private static String votersKey(String ownerId) {
+        return tallyKey(ownerId) + ":voters";
+    }
+
+    private static long toEpochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
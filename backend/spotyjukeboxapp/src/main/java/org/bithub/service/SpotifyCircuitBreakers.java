@@ -0,0 +1,279 @@
+package org.bithub.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * SpotifyCircuitBreakers
+ * ------------------------------------------------------------------------
+ * Per-endpoint isolation of Spotify calls, applied by {@link SpotifyGateway#call}.
+ *
+ * Each endpoint (now-playing, queue, playlist tracks, ...) gets:
+ *   • a bulkhead: at most {@code spotify.bulkhead.max-concurrent-calls}
+ *     calls in flight; further callers wait {@code spotify.bulkhead.max-wait-ms}
+ *     for a slot and are then turned away
+ *   • a circuit breaker: after {@code spotify.circuit-breaker.failure-threshold}
+ *     consecutive failures (timeouts, I/O errors, 5xx) the endpoint is not
+ *     called for {@code spotify.circuit-breaker.open-duration-seconds};
+ *     then a single trial call decides whether it closes again
+ *
+ * Turned-away calls fail fast with a {@link SpotifyUnavailableException},
+ * so a hanging endpoint cannot tie up controller or scheduler threads.
+ * 4xx answers mean Spotify is reachable and do not count as failures.
+ * A 429 says nothing about the endpoint's health and counts as neither,
+ * except for a trial call, which it fails: the circuit stays open while
+ * Spotify asks us to back off anyway.
+ *
+ * Every state change starts a new breaker generation. A call's outcome is
+ * only recorded if the generation it started in is still current, so a slow
+ * call that started before the circuit opened cannot close it again.
+ *
+ * Breaker states are reported by the health endpoint
+ * ({@code /actuator/health}, component {@code spotifyCircuitBreakers}):
+ * {@code DEGRADED} while any endpoint's circuit is open, {@code UP} otherwise.
+ *
+ * Metrics:
+ *   • spotify.breaker.state    (gauge, tag endpoint)           0 closed, 1 half-open, 2 open
+ *   • spotify.breaker.rejected (counter, tags endpoint/reason) calls turned away
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SpotifyCircuitBreakers implements HealthIndicator {
+
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentMap<String, Breaker> breakers = new ConcurrentHashMap<>();
+
+    @Value("${spotify.circuit-breaker.failure-threshold:5}")
+    private int failureThreshold;
+
+    @Value("${spotify.circuit-breaker.open-duration-seconds:30}")
+    private long openDurationSeconds;
+
+    @Value("${spotify.bulkhead.max-concurrent-calls:10}")
+    private int maxConcurrentCalls;
+
+    @Value("${spotify.bulkhead.max-wait-ms:100}")
+    private long bulkheadWaitMillis;
+
+    private enum State { CLOSED, HALF_OPEN, OPEN }
+
+    private enum Outcome { SUCCEEDED, FAILED, THROTTLED, IGNORED }
+
+    /** Health status while at least one endpoint is cut off; ordered between DOWN and UP in application.yaml. */
+    static final Status DEGRADED = new Status("DEGRADED", "Spotify circuit open for some endpoints");
+
+    /**
+     * Fails fast if the endpoint's circuit is open, before the caller spends
+     * rate-limit tokens on a call that would be turned away anyway.
+     *
+     * @param endpoint name of the Spotify endpoint
+     * @throws SpotifyUnavailableException if the breaker is open
+     */
+    public void checkOpen(String endpoint) {
+        Breaker breaker = breakers.computeIfAbsent(endpoint, Breaker::new);
+        if (breaker.isOpen()) {
+            breaker.reject("open");
+            throw new SpotifyUnavailableException(endpoint, "circuit open");
+        }
+    }
+
+    /**
+     * Runs a call to the given endpoint inside its bulkhead and circuit breaker.
+     *
+     * @param endpoint name of the Spotify endpoint
+     * @param call     the call
+     * @return the call's result
+     * @throws SpotifyUnavailableException if the breaker is open or the bulkhead is full
+     */
+    public <T> T execute(String endpoint, Supplier<T> call) {
+        Breaker breaker = breakers.computeIfAbsent(endpoint, Breaker::new);
+
+        long generation = breaker.tryPass();
+        if (generation < 0) {
+            breaker.reject("open");
+            throw new SpotifyUnavailableException(endpoint, "circuit open");
+        }
+        if (!breaker.enterBulkhead()) {
+            breaker.record(generation, Outcome.IGNORED);
+            breaker.reject("bulkhead");
+            throw new SpotifyUnavailableException(endpoint, "too many concurrent calls");
+        }
+
+        // Anything not classified below (an Error, say) is ignored, which still ends a trial call
+        Outcome outcome = Outcome.IGNORED;
+        try {
+            T result = call.get();
+            outcome = Outcome.SUCCEEDED;
+            return result;
+        } catch (ResourceAccessException | HttpServerErrorException e) {
+            outcome = Outcome.FAILED;
+            throw e;
+        } catch (HttpClientErrorException.TooManyRequests e) {
+            outcome = Outcome.THROTTLED;
+            throw e;
+        } catch (RuntimeException e) {
+            if (!(e instanceof SpotifyThrottledException)) { // a throttled call was never made
+                outcome = Outcome.SUCCEEDED; // Spotify answered
+            }
+            throw e;
+        } finally {
+            breaker.bulkhead.release();
+            breaker.record(generation, outcome);
+        }
+    }
+
+    @Override
+    public Health health() {
+        Map<String, Object> details = new TreeMap<>();
+        breakers.forEach((endpoint, breaker) -> details.put(endpoint, breaker.describe()));
+        boolean anyOpen = breakers.values().stream().anyMatch(b -> b.state() == State.OPEN);
+        return Health.status(anyOpen ? DEGRADED : Status.UP).withDetails(details).build();
+    }
+
+
+    // --------------------------------------------------------------------
+    // Breakers
+    // --------------------------------------------------------------------
+
+    /**
+     * Breaker and bulkhead of one endpoint. State changes are rare and
+     * cheap, so they are simply synchronized.
+     */
+    private final class Breaker {
+
+        private final String endpoint;
+        private final Semaphore bulkhead = new Semaphore(maxConcurrentCalls);
+        private final Counter rejectedOpen;
+        private final Counter rejectedBulkhead;
+
+        private State state = State.CLOSED;
+        private int consecutiveFailures;
+        private long openedAt;
+        private boolean trialRunning;
+        /** Bumped on every state change; outcomes of calls from older generations are dropped. */
+        private long generation;
+
+        Breaker(String endpoint) {
+            this.endpoint = endpoint;
+            this.rejectedOpen = rejectedCounter("open");
+            this.rejectedBulkhead = rejectedCounter("bulkhead");
+            Gauge.builder("spotify.breaker.state", this, b -> b.state().ordinal())
+                    .tag("endpoint", endpoint)
+                    .description("Circuit breaker state: 0 closed, 1 half-open, 2 open")
+                    .register(meterRegistry);
+        }
+
+        /**
+         * @return the generation the call runs in, or -1 if it may not pass
+         */
+        synchronized long tryPass() {
+            switch (state) {
+                case CLOSED:
+                    return generation;
+                case OPEN:
+                    if (System.nanoTime() - openedAt < TimeUnit.SECONDS.toNanos(openDurationSeconds)) return -1;
+                    transition(State.HALF_OPEN);
+                    log.info("🔌 Circuit for Spotify {} half-open, sending a trial call", endpoint);
+                    // fall through: this caller makes the trial call
+                default:
+                    if (trialRunning) return -1;
+                    trialRunning = true;
+                    return generation;
+            }
+        }
+
+        synchronized boolean isOpen() {
+            return state == State.OPEN
+                    && System.nanoTime() - openedAt < TimeUnit.SECONDS.toNanos(openDurationSeconds);
+        }
+
+        boolean enterBulkhead() {
+            try {
+                return bulkhead.tryAcquire(bulkheadWaitMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        /**
+         * Records how a call ended, unless the breaker changed state since it started.
+         */
+        synchronized void record(long callGeneration, Outcome outcome) {
+            if (callGeneration != generation) return;
+            boolean trial = state == State.HALF_OPEN;
+            if (trial) trialRunning = false;
+
+            if (outcome == Outcome.SUCCEEDED) {
+                consecutiveFailures = 0;
+                if (trial) {
+                    transition(State.CLOSED);
+                    log.info("✅ Circuit for Spotify {} closed again", endpoint);
+                }
+            } else if (outcome == Outcome.FAILED) {
+                consecutiveFailures++;
+                if (trial || consecutiveFailures >= failureThreshold) open();
+            } else if (outcome == Outcome.THROTTLED && trial) {
+                open();
+            }
+        }
+
+        private void open() {
+            transition(State.OPEN);
+            openedAt = System.nanoTime();
+            log.warn("🔌 Circuit for Spotify {} opened after {} failures, pausing calls for {} s",
+                    endpoint, consecutiveFailures, openDurationSeconds);
+        }
+
+        private void transition(State next) {
+            state = next;
+            generation++;
+        }
+
+        void reject(String reason) {
+            ("open".equals(reason) ? rejectedOpen : rejectedBulkhead).increment();
+        }
+
+        synchronized State state() {
+            return state;
+        }
+
+        synchronized Map<String, Object> describe() {
+            Map<String, Object> details = new LinkedHashMap<>();
+            details.put("state", state);
+            details.put("consecutiveFailures", consecutiveFailures);
+            details.put("activeCalls", maxConcurrentCalls - bulkhead.availablePermits());
+            return details;
+        }
+
+        private Counter rejectedCounter(String reason) {
+            return Counter.builder("spotify.breaker.rejected")
+                    .tag("endpoint", endpoint)
+                    .tag("reason", reason)
+                    .description("Spotify calls turned away by a circuit breaker or bulkhead")
+                    .register(meterRegistry);
+        }
+    }
+}
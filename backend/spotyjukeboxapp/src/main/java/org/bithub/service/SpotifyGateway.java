@@ -0,0 +1,158 @@
+package org.bithub.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bithub.model.UserInfo;
+import org.bithub.service.SpotifyRateGovernor.Priority;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * SpotifyGateway
+ * ------------------------------------------------------------------------
+ * Single exit point for Spotify Web API calls.
+ *
+ * {@link #call} runs one request on behalf of a user:
+ *   • fails fast while the endpoint's circuit is open
+ *   • takes a token from the {@link SpotifyRateGovernor}
+ *   • gets a valid access token (see {@link SpotifyRefreshService})
+ *   • only then enters the endpoint's circuit breaker and bulkhead
+ *     ({@link SpotifyCircuitBreakers}), so neither waiting for a token nor
+ *     refreshing one holds a bulkhead slot or counts against the endpoint
+ *   • on 401, refreshes the token and retries once
+ *   • on 429, honours {@code Retry-After} and retries up to
+ *     {@code spotify.rate-limit.max-attempts} attempts in total
+ *
+ * Calls are interactive unless they run inside {@link #runInBackground};
+ * the priority follows calls started with {@link #async}.
+ *
+ * Calls can also run asynchronously on virtual threads. The calls themselves
+ * stay plain blocking {@code RestTemplate} code (see
+ * {@link org.bithub.config.SpotifyConfig}); blocking a virtual thread only
+ * parks it, so independent requests such as now-playing and playlist
+ * tracks can be issued together and joined, without sizing a thread pool.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SpotifyGateway {
+
+    private static final ThreadLocal<Priority> PRIORITY = ThreadLocal.withInitial(() -> Priority.INTERACTIVE);
+
+    private final SpotifyRefreshService spotifyRefreshService;
+    private final SpotifyRateGovernor rateGovernor;
+    private final SpotifyCircuitBreakers circuitBreakers;
+
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("spotify-", 0).factory());
+
+    @Value("${spotify.rate-limit.max-attempts:3}")
+    private int maxAttempts;
+
+    /**
+     * Makes a Spotify request for the given user.
+     *
+     * @param endpoint name of the Spotify endpoint, used for circuit breaking
+     * @param user     the user the request is made for; its token is refreshed in place if needed
+     * @param request  the request, given the access token to send
+     * @return the request's result
+     * @throws SpotifyThrottledException if the call was deferred or kept being rate-limited
+     * @throws SpotifyUnavailableException if the endpoint's circuit is open or its bulkhead is full
+     * @throws HttpClientErrorException.Unauthorized if the token is still rejected after a refresh
+     */
+    public <T> T call(String endpoint, UserInfo user, Function<String, T> request) {
+        Priority priority = PRIORITY.get();
+        boolean refreshed = false;
+
+        for (int attempt = 1; ; attempt++) {
+            circuitBreakers.checkOpen(endpoint);
+            rateGovernor.acquire(user.getSpotifyUserId(), priority);
+            String accessToken = spotifyRefreshService.getValidAccessToken(user);
+            try {
+                return circuitBreakers.execute(endpoint, () -> request.apply(accessToken));
+
+            } catch (HttpClientErrorException.Unauthorized e) {
+                if (refreshed || spotifyRefreshService.refreshAccessToken(user) == null) throw e;
+                refreshed = true;
+                log.warn("🔑 Access token of {} rejected, retrying with a refreshed token", user.getSpotifyUserId());
+
+            } catch (HttpClientErrorException.TooManyRequests e) {
+                long retryAfterMillis = rateGovernor.onRateLimited(e.getResponseHeaders());
+                if (attempt >= maxAttempts) throw new SpotifyThrottledException(retryAfterMillis);
+            }
+        }
+    }
+
+    /**
+     * @return whether the current thread runs background work
+     */
+    public boolean isBackground() {
+        return PRIORITY.get() == Priority.BACKGROUND;
+    }
+
+    /**
+     * Runs a block with the given priority for the Spotify calls it makes.
+     *
+     * @param priority priority of the calls
+     * @param block    the block to run
+     * @return the block's result
+     */
+    public <T> T withPriority(Priority priority, Supplier<T> block) {
+        Priority previous = PRIORITY.get();
+        PRIORITY.set(priority);
+        try {
+            return block.get();
+        } finally {
+            PRIORITY.set(previous);
+        }
+    }
+
+    /**
+     * Starts a Spotify call on its own virtual thread, with the caller's priority.
+     *
+     * @param call the blocking call
+     * @return a future completed with the call's result
+     */
+    public <T> CompletableFuture<T> async(Supplier<T> call) {
+        Priority priority = PRIORITY.get();
+        return CompletableFuture.supplyAsync(() -> withPriority(priority, call), executor);
+    }
+
+    /**
+     * Runs independent background tasks concurrently and waits until all of
+     * them finished. Their Spotify calls yield to interactive ones and are
+     * deferred rather than delayed (see {@link SpotifyRateGovernor}).
+     * Failures are logged and do not cancel the other tasks.
+     *
+     * @param tasks tasks to run
+     */
+    public void runInBackground(Collection<? extends Runnable> tasks) {
+        List<CompletableFuture<Void>> futures = tasks.stream()
+                .map(task -> CompletableFuture.runAsync(
+                                () -> withPriority(Priority.BACKGROUND, () -> {
+                                    task.run();
+                                    return null;
+                                }), executor)
+                        .exceptionally(e -> {
+                            log.warn("⚠️ Spotify task failed", e);
+                            return null;
+                        }))
+                .toList();
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,209 @@
+package org.bithub.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SpotifyRateGovernor
+ * ------------------------------------------------------------------------
+ * Central budget for outgoing Spotify Web API calls. Every call made
+ * through {@link SpotifyGateway#call} takes a token here first.
+ *
+ * Two token buckets must grant a token:
+ *   • one for the app credential (Spotify rate-limits per client ID)
+ *   • one per Spotify user, so one busy session cannot use up the app budget
+ *
+ * Calls have a {@link Priority}. Interactive calls (guests voting, polling
+ * now-playing) may use the whole app bucket and wait up to
+ * {@code spotify.rate-limit.max-wait-ms} for a token. Background calls
+ * (scheduled playlist reorders) leave {@code spotify.rate-limit.background-reserve}
+ * tokens to interactive calls and never wait: they are deferred with a
+ * {@link SpotifyThrottledException} and run again on the next cycle.
+ *
+ * A {@code 429 Too Many Requests} from Spotify blocks all calls until its
+ * {@code Retry-After} has passed.
+ *
+ * Metrics:
+ *   • spotify.ratelimit.deferred  (counter, tag priority)  calls not made because of the budget
+ *   • spotify.ratelimit.throttled (counter)                429 responses received from Spotify
+ */
+@Slf4j
+@Component
+public class SpotifyRateGovernor {
+
+    /**
+     * How urgently a Spotify call is needed.
+     */
+    public enum Priority {
+        /** A user is waiting for the answer. */
+        INTERACTIVE,
+        /** Scheduled work that can just as well run on its next cycle. */
+        BACKGROUND
+    }
+
+    private final long startNanos = System.nanoTime();
+
+    private final TokenBucket app;
+    private final long appCapacityMilli;
+    private final double appRefillMilliPerMs;
+    private final long backgroundReserveMilli;
+
+    private final ConcurrentMap<String, TokenBucket> users = new ConcurrentHashMap<>();
+    private final long userCapacityMilli;
+    private final double userRefillMilliPerMs;
+
+    /** Time (ms since start) until which Spotify asked us to stop calling. */
+    private final AtomicLong blockedUntil = new AtomicLong();
+
+    private final Map<Priority, Counter> deferred = new EnumMap<>(Priority.class);
+    private final Counter throttled;
+
+    @Value("${spotify.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${spotify.rate-limit.max-wait-ms:3000}")
+    private long maxWaitMillis;
+
+    @Value("${spotify.rate-limit.default-retry-after-seconds:2}")
+    private long defaultRetryAfterSeconds;
+
+    @PostConstruct
+    void checkRetryAfter() {
+        // A block longer than the interactive wait budget makes every interactive call fail fast instead of retrying
+        if (TimeUnit.SECONDS.toMillis(defaultRetryAfterSeconds) >= maxWaitMillis) {
+            log.warn("⚠️ spotify.rate-limit.default-retry-after-seconds ({} s) is not below max-wait-ms ({} ms): "
+                    + "interactive calls will not be retried after a 429 without Retry-After",
+                    defaultRetryAfterSeconds, maxWaitMillis);
+        }
+    }
+
+    public SpotifyRateGovernor(@Value("${spotify.rate-limit.app.capacity:60}") int appCapacity,
+                               @Value("${spotify.rate-limit.app.per-minute:180}") int appPerMinute,
+                               @Value("${spotify.rate-limit.user.capacity:20}") int userCapacity,
+                               @Value("${spotify.rate-limit.user.per-minute:60}") int userPerMinute,
+                               @Value("${spotify.rate-limit.background-reserve:15}") int backgroundReserve,
+                               MeterRegistry meterRegistry) {
+        if (appCapacity < 1 || appCapacity > TokenBucket.MAX_CAPACITY || appPerMinute < 1
+                || userCapacity < 1 || userCapacity > TokenBucket.MAX_CAPACITY || userPerMinute < 1
+                || backgroundReserve < 0 || backgroundReserve >= appCapacity) {
+            throw new IllegalArgumentException("Invalid Spotify rate limit: app=" + appCapacity + "/" + appPerMinute
+                    + ", user=" + userCapacity + "/" + userPerMinute + ", background-reserve=" + backgroundReserve);
+        }
+        this.appCapacityMilli = appCapacity * 1000L;
+        this.appRefillMilliPerMs = appPerMinute / 60.0;
+        this.backgroundReserveMilli = backgroundReserve * 1000L;
+        this.userCapacityMilli = userCapacity * 1000L;
+        this.userRefillMilliPerMs = userPerMinute / 60.0;
+        this.app = new TokenBucket(appCapacityMilli, 0);
+
+        for (Priority priority : Priority.values()) {
+            deferred.put(priority, Counter.builder("spotify.ratelimit.deferred")
+                    .tag("priority", priority.name().toLowerCase())
+                    .description("Spotify calls deferred or dropped by the rate-limit governor")
+                    .register(meterRegistry));
+        }
+        this.throttled = Counter.builder("spotify.ratelimit.throttled")
+                .description("429 responses received from Spotify")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Takes a token for one Spotify call of the given user. Interactive
+     * calls wait for a token for a bounded time; background calls do not wait.
+     *
+     * @param userId   Spotify user the call is made for
+     * @param priority priority of the call
+     * @throws SpotifyThrottledException if no token could be taken
+     */
+    public void acquire(String userId, Priority priority) {
+        if (!enabled) return;
+
+        long deadline = nowMillis() + (priority == Priority.INTERACTIVE ? maxWaitMillis : 0);
+        while (true) {
+            long now = nowMillis();
+            long wait = tryAcquire(userId, priority, now);
+            if (wait == 0) return;
+
+            if (now + wait > deadline) {
+                deferred.get(priority).increment();
+                log.debug("⏳ Deferred {} Spotify call for {} ({} ms until allowed)", priority, userId, wait);
+                throw new SpotifyThrottledException(wait);
+            }
+            try {
+                Thread.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SpotifyThrottledException(wait);
+            }
+        }
+    }
+
+    /**
+     * Records a {@code 429 Too Many Requests} answer: no call is made
+     * until the {@code Retry-After} it carries has passed.
+     *
+     * @param headers response headers of the 429 (may be {@code null})
+     * @return the milliseconds calls are blocked for
+     */
+    public long onRateLimited(HttpHeaders headers) {
+        long retryAfterMillis = TimeUnit.SECONDS.toMillis(retryAfterSeconds(headers));
+        long until = nowMillis() + retryAfterMillis;
+        blockedUntil.accumulateAndGet(until, Math::max);
+        throttled.increment();
+        log.warn("🚦 Spotify rate limit hit, pausing calls for {} ms", retryAfterMillis);
+        return retryAfterMillis;
+    }
+
+    /**
+     * Drops user buckets that have refilled completely; dropping them changes nothing.
+     */
+    @Scheduled(fixedRate = 60_000)
+    public void evictIdleBuckets() {
+        long now = nowMillis();
+        long fullAfter = (long) (userCapacityMilli / userRefillMilliPerMs);
+        users.values().removeIf(b -> now - b.lastRefill() > fullAfter);
+    }
+
+    private long tryAcquire(String userId, Priority priority, long now) {
+        long blocked = blockedUntil.get() - now;
+        if (blocked > 0) return blocked;
+
+        TokenBucket user = users.computeIfAbsent(userId, k -> new TokenBucket(userCapacityMilli, now));
+        long wait = user.tryAcquire(now, userCapacityMilli, userRefillMilliPerMs);
+        if (wait > 0) return wait;
+
+        long reserve = priority == Priority.BACKGROUND ? backgroundReserveMilli : 0;
+        wait = app.tryAcquire(now, appCapacityMilli, appRefillMilliPerMs, reserve);
+        if (wait > 0) user.release(userCapacityMilli);
+        return wait;
+    }
+
+    private long retryAfterSeconds(HttpHeaders headers) {
+        String value = headers != null ? headers.getFirst(HttpHeaders.RETRY_AFTER) : null;
+        if (value != null) {
+            try {
+                return Math.max(Long.parseLong(value.trim()), 1);
+            } catch (NumberFormatException e) {
+                log.debug("Unparseable Retry-After '{}', using default", value);
+            }
+        }
+        return defaultRetryAfterSeconds;
+    }
+
+    private long nowMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+}
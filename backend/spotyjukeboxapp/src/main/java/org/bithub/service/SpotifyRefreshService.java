@@ -1,27 +1,57 @@
 package org.bithub.service;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.bithub.model.UserInfo;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Service responsible for refreshing expired Spotify access tokens
  * using stored refresh tokens. Updates the user record in the database
  * with new token details.
+ * <p>
+ * Tokens are renewed proactively: a scheduler refreshes every token
+ * {@code spotify.token.refresh-lead-seconds} before it expires, shifted by
+ * a stable per-user jitter so tokens issued together are not all renewed
+ * in the same pass. The current token and its expiry are kept in memory,
+ * so request paths get a valid token from {@link #getValidAccessToken(UserInfo)}
+ * and should almost never run into a 401.
+ * </p>
+ * <p>
+ * Refreshes are single-flight per user: concurrent callers (request paths
+ * hitting the same 401, the scheduler) share one in-flight refresh instead
+ * of each posting to the token endpoint and saving the user.
+ * </p>
  */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class SpotifyRefreshService {
 
     private final UserService userService;
+    private final RestTemplate restTemplate;
+
+    /** Latest known access token and its expiry, per Spotify user ID. */
+    private final ConcurrentMap<String, CachedToken> tokens = new ConcurrentHashMap<>();
+
+    /** Refresh currently running per Spotify user ID, shared by all waiters. */
+    private final ConcurrentMap<String, CompletableFuture<CachedToken>> inFlight = new ConcurrentHashMap<>();
 
     @Value("${spotify.client-id}")
     private String clientId;
@@ -29,17 +59,101 @@ public class SpotifyRefreshService {
     @Value("${spotify.client-secret}")
     private String clientSecret;
 
+    @Value("${spotify.token.refresh-lead-seconds:300}")
+    private long refreshLeadSeconds;
+
+    @Value("${spotify.token.refresh-jitter-seconds:120}")
+    private long refreshJitterSeconds;
+
+    private record CachedToken(String accessToken, String refreshToken, LocalDateTime issuedAt, Instant expiresAt) {}
+
+    /**
+     * Returns an access token for the user that is valid for at least a
+     * little longer, refreshing it first if it is about to expire.
+     * The user object is updated with the returned token.
+     *
+     * @param user the user whose token is needed
+     * @return the access token to use
+     */
+    public String getValidAccessToken(UserInfo user) {
+        CachedToken token = current(user);
+
+        if (token.expiresAt().isBefore(Instant.now().plusSeconds(30))) {
+            UserInfo refreshed = refreshAccessToken(user);
+            if (refreshed != null) return refreshed.getAccessToken();
+        } else if (!Objects.equals(token.accessToken(), user.getAccessToken())) {
+            apply(user, token);
+        }
+        return user.getAccessToken();
+    }
+
+    /**
+     * Renews every token that expires within the refresh lead (minus the
+     * user's jitter), so request paths keep finding valid tokens.
+     */
+    @Scheduled(fixedDelayString = "${spotify.token.refresh-check-interval-ms:30000}")
+    public void refreshExpiringTokens() {
+        Instant now = Instant.now();
+        for (UserInfo user : userService.findAll()) {
+            if (user.getRefreshToken() == null) continue;
+
+            CachedToken token = current(user);
+            Instant refreshAt = token.expiresAt()
+                    .minusSeconds(refreshLeadSeconds)
+                    .minusSeconds(jitterSeconds(user.getSpotifyUserId()));
+
+            if (!refreshAt.isAfter(now)) {
+                log.debug("🔄 Proactively refreshing token for {} (expires {})",
+                        user.getSpotifyUserId(), token.expiresAt());
+                refreshAccessToken(user);
+            }
+        }
+    }
+
     /**
      * Requests a new access token from Spotify using the user's refresh token
      * and updates the corresponding {@link UserInfo} entity in the database.
+     * <p>
+     * If a refresh for the user is already running, waits for it instead of
+     * starting another one. A user object still holding a token that has
+     * already been replaced just receives the newer token.
+     * </p>
      *
      * @param user the user whose access token needs to be refreshed
      * @return the updated {@link UserInfo} object, or {@code null} if the refresh fails
      */
     public UserInfo refreshAccessToken(UserInfo user) {
+        String userId = user.getSpotifyUserId();
+
+        // The token that failed has been replaced meanwhile: no need to refresh again
+        CachedToken cached = current(user);
+        if (!Objects.equals(cached.accessToken(), user.getAccessToken())
+                && cached.expiresAt().isAfter(Instant.now().plusSeconds(30))) {
+            return apply(user, cached);
+        }
+
+        CompletableFuture<CachedToken> refresh = new CompletableFuture<>();
+        CompletableFuture<CachedToken> running = inFlight.putIfAbsent(userId, refresh);
+        if (running != null) {
+            log.debug("⏳ Waiting for in-flight token refresh of {}", userId);
+            CachedToken token = running.join();
+            return token != null ? apply(user, token) : null;
+        }
+
         try {
-            RestTemplate restTemplate = new RestTemplate();
+            UserInfo refreshed = requestNewToken(user);
+            refresh.complete(refreshed != null ? tokens.get(userId) : null);
+            return refreshed;
+        } catch (RuntimeException e) {
+            refresh.complete(null);
+            throw e;
+        } finally {
+            inFlight.remove(userId, refresh);
+        }
+    }
 
+    private UserInfo requestNewToken(UserInfo user) {
+        try {
             // Prepare HTTP headers
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
@@ -60,7 +174,7 @@ public class SpotifyRefreshService {
             );
 
             if (!response.getStatusCode().is2xxSuccessful()) {
-                System.err.println("⚠️ Failed to refresh token. Status: " + response.getStatusCode());
+                log.warn("⚠️ Failed to refresh token. Status: {}", response.getStatusCode());
                 return null;
             }
 
@@ -68,21 +182,68 @@ public class SpotifyRefreshService {
             Map<String, Object> data = response.getBody();
             String newAccessToken = (String) data.get("access_token");
             Number expiresIn = (Number) data.get("expires_in");
+            String newRefreshToken = (String) data.get("refresh_token");
 
             // Update user info
             user.setAccessToken(newAccessToken);
             user.setExpiresIn(expiresIn != null ? expiresIn.longValue() : 3600L);
             user.setUpdatedAt(LocalDateTime.now());
+            if (newRefreshToken != null) {
+                // Spotify may rotate the refresh token
+                user.setRefreshToken(newRefreshToken);
+            }
 
             userService.save(user);
-            System.out.println("✅ Successfully refreshed token for user: " + user.getSpotifyUserId());
+            tokens.put(user.getSpotifyUserId(), new CachedToken(newAccessToken, user.getRefreshToken(),
+                    user.getUpdatedAt(), Instant.now().plusSeconds(user.getExpiresIn())));
+            log.info("✅ Successfully refreshed token for user: {}", user.getSpotifyUserId());
 
             return user;
 
         } catch (Exception e) {
-            System.err.println("❌ Error refreshing token for user: " + user.getSpotifyUserId());
-            e.printStackTrace();
+            log.error("❌ Error refreshing token for user: {}", user.getSpotifyUserId(), e);
             return null;
         }
     }
+
+    /**
+     * Returns the cached token of the user. A user record carrying a
+     * different token that was stored after the cached one (e.g. a new
+     * login) replaces the cache entry; an older, stale record does not.
+     */
+    private CachedToken current(UserInfo user) {
+        return tokens.compute(user.getSpotifyUserId(), (id, cached) -> {
+            if (cached == null) return fromUser(user);
+            if (Objects.equals(cached.accessToken(), user.getAccessToken())) return cached;
+            boolean newer = user.getUpdatedAt() != null && user.getUpdatedAt().isAfter(cached.issuedAt());
+            return newer ? fromUser(user) : cached;
+        });
+    }
+
+    /**
+     * Builds the cache entry for a token that was not issued through this
+     * service (e.g. the login callback), using the stored issue time.
+     */
+    private static CachedToken fromUser(UserInfo user) {
+        LocalDateTime issuedAt = user.getUpdatedAt() != null ? user.getUpdatedAt() : LocalDateTime.now();
+        long expiresIn = user.getExpiresIn() != null ? user.getExpiresIn() : 3600L;
+        Instant expiresAt = issuedAt.atZone(ZoneId.systemDefault()).toInstant().plus(Duration.ofSeconds(expiresIn));
+        return new CachedToken(user.getAccessToken(), user.getRefreshToken(), issuedAt, expiresAt);
+    }
+
+    /**
+     * Copies a token obtained by another refresh onto the caller's user object.
+     */
+    private static UserInfo apply(UserInfo user, CachedToken token) {
+        user.setAccessToken(token.accessToken());
+        user.setRefreshToken(token.refreshToken());
+        user.setExpiresIn(Duration.between(token.issuedAt().atZone(ZoneId.systemDefault()).toInstant(),
+                token.expiresAt()).toSeconds());
+        user.setUpdatedAt(token.issuedAt());
+        return user;
+    }
+
+    private long jitterSeconds(String userId) {
+        return refreshJitterSeconds <= 0 ? 0 : Math.floorMod(userId.hashCode(), refreshJitterSeconds);
+    }
 }
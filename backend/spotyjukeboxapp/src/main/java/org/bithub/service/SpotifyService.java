@@ -3,18 +3,24 @@ package org.bithub.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.bithub.model.SpotifyDevice;
+import org.bithub.model.SpotifyDeviceList;
+import org.bithub.model.SpotifyPlayback;
 import org.bithub.model.SpotifyPlaylist;
+import org.bithub.model.SpotifyPlaylistPage;
+import org.bithub.model.SpotifyQueue;
+import org.bithub.model.SpotifySnapshot;
+import org.bithub.model.SpotifyTrack;
+import org.bithub.model.TrackVote;
 import org.bithub.model.UserInfo;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.util.MultiValueMap;
-import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
 import java.util.*;
-import java.util.function.Function;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
 import java.util.stream.Collectors;
 
 /**
@@ -30,6 +36,12 @@ import java.util.stream.Collectors;
  *   - {@link SpotifyRefreshService} for token refresh
  *   - {@link VoteService} for vote and cooldown tracking
  *   - {@link UserService} for saving Spotify user data
+ *   - {@link SpotifyGateway} for rate-limited, retried and concurrent Spotify calls
+ *
+ * Responses are decoded into the typed records of {@code org.bithub.model}
+ * (SpotifyPlayback, SpotifyPlaylistPage, ...), which skip every field the
+ * Jukebox does not use; tracks are handed to callers and clients as maps
+ * of that reduced Spotify shape.
  *
  * This class is central to the dynamic Spotify Jukebox feature,
  * which reorders and plays songs based on audience votes.
@@ -46,6 +58,10 @@ public class SpotifyService {
     private final VoteService voteService;
     private final RestTemplate restTemplate;
     private final UserService userService;
+    private final SpotifyGateway spotifyGateway;
+    private final NowPlayingCache nowPlayingCache;
+    private final PlaylistTrackCache playlistTrackCache;
+    private final PlaylistOrderFingerprints orderFingerprints;
 
     // --------------------------------------------------------------------
     // Configuration
@@ -53,11 +69,14 @@ public class SpotifyService {
     @Value("${spotify.api.url}")
     private String spotifyApiUrl;
 
-    @Value("${spotify.client-id}")
-    private String clientId;
+    /** Largest page Spotify serves for playlist items. */
+    private static final int PLAYLIST_PAGE_SIZE = 100;
+
+    @Value("${spotify.playlist.page-parallelism:4}")
+    private int playlistPageParallelism;
 
-    @Value("${spotify.client-secret}")
-    private String clientSecret;
+    @Value("${spotify.playlist.max-reorder-moves:10}")
+    private int maxReorderMoves;
 
 
     // --------------------------------------------------------------------
@@ -66,46 +85,15 @@ public class SpotifyService {
 
     /**
      * Refreshes the Spotify access token for the given user.
-     * This is the primary implementation used throughout the service.
+     * Delegates to {@link SpotifyRefreshService#refreshAccessToken(UserInfo)},
+     * so concurrent refreshes for the same user share one request.
      *
      * @param user Spotify user with an existing refresh token.
      * @return new access token string, or null if refresh failed.
      */
     public String refreshAccessToken(UserInfo user) {
-        String url = "https://accounts.spotify.com/api/token";
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.setBasicAuth(clientId, clientSecret);
-        headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
-
-        MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
-        params.add("grant_type", "refresh_token");
-        params.add("refresh_token", user.getRefreshToken());
-
-        HttpEntity<MultiValueMap<String, String>> request = new HttpEntity<>(params, headers);
-
-        try {
-            ResponseEntity<Map> response = restTemplate.postForEntity(url, request, Map.class);
-
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                String newToken = (String) response.getBody().get("access_token");
-                Number expiresIn = (Number) response.getBody().get("expires_in");
-
-                user.setAccessToken(newToken);
-                user.setExpiresIn(expiresIn.longValue());
-                userService.save(user);
-
-                log.info("✅ Refreshed Spotify token for user {}", user.getSpotifyUserId());
-                return newToken;
-            }
-
-            log.error("❌ Spotify token refresh failed for user {}", user.getSpotifyUserId());
-            return null;
-
-        } catch (Exception e) {
-            log.error("❌ Error refreshing token for user {}", user.getSpotifyUserId(), e);
-            return null;
-        }
+        UserInfo refreshed = spotifyRefreshService.refreshAccessToken(user);
+        return refreshed != null ? refreshed.getAccessToken() : null;
     }
 
 
@@ -122,29 +110,16 @@ public class SpotifyService {
     public List<SpotifyDevice> getAvailableDevices(UserInfo user) {
         String url = spotifyApiUrl + "/me/player/devices";
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setBearerAuth(user.getAccessToken());
-        HttpEntity<Void> request = new HttpEntity<>(headers);
-
         try {
-            ResponseEntity<Map> response = restTemplate.exchange(url, HttpMethod.GET, request, Map.class);
-            List<Map<String, Object>> devicesData = (List<Map<String, Object>>) response.getBody().get("devices");
-
-            if (devicesData == null) return Collections.emptyList();
-
-            return devicesData.stream()
-                    .map(d -> new SpotifyDevice(
-                            (String) d.get("id"),
-                            (String) d.get("name"),
-                            (String) d.get("type"),
-                            Boolean.TRUE.equals(d.get("is_active"))
-                    ))
-                    .collect(Collectors.toList());
+            ResponseEntity<SpotifyDeviceList> response = spotifyGateway.call("devices", user, token ->
+                    restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(authHeaders(token)), SpotifyDeviceList.class));
+            SpotifyDeviceList body = response.getBody();
+
+            if (body == null || body.devices() == null) return Collections.emptyList();
 
-        } catch (HttpClientErrorException.Unauthorized e) {
-            log.warn("Access token expired while fetching devices. Refreshing...");
-            UserInfo refreshed = spotifyRefreshService.refreshAccessToken(user);
-            return getAvailableDevices(refreshed);
+            return body.devices().stream()
+                    .map(d -> new SpotifyDevice(d.id(), d.name(), d.type(), d.isActive()))
+                    .collect(Collectors.toList());
 
         } catch (Exception e) {
             log.error("❌ Error fetching Spotify devices for user {}", user.getSpotifyUserId(), e);
@@ -188,23 +163,14 @@ public class SpotifyService {
      */
     public void playOnDevice(UserInfo user, String deviceId, String playlistId) {
         String url = spotifyApiUrl + "/me/player/play?device_id=" + deviceId;
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.setBearerAuth(user.getAccessToken());
-        headers.setContentType(MediaType.APPLICATION_JSON);
-
         Map<String, Object> body = Map.of("context_uri", "spotify:playlist:" + playlistId);
-        HttpEntity<Map<String, Object>> entity = new HttpEntity<>(body, headers);
 
         try {
-            restTemplate.exchange(url, HttpMethod.PUT, entity, Void.class);
+            spotifyGateway.call("play", user, token ->
+                    restTemplate.exchange(url, HttpMethod.PUT, new HttpEntity<>(body, jsonHeaders(token)), Void.class));
+            nowPlayingCache.invalidate(user.getSpotifyUserId());
             log.info("🎵 Playing playlist {} on device {}", playlistId, deviceId);
 
-        } catch (HttpClientErrorException.Unauthorized e) {
-            log.warn("Access token expired during playback. Refreshing...");
-            UserInfo refreshed = spotifyRefreshService.refreshAccessToken(user);
-            playOnDevice(refreshed, deviceId, playlistId);
-
         } catch (Exception e) {
             log.error("❌ Failed to start playback on device {}", deviceId, e);
         }
@@ -216,51 +182,61 @@ public class SpotifyService {
     // --------------------------------------------------------------------
 
     /**
-     * Retrieves the currently playing track.
+     * Retrieves the currently playing track. Answers are shared through the
+     * {@link NowPlayingCache}, so Spotify is asked again only around the end
+     * of the track (or after the cache's maximum TTL). While the endpoint's
+     * circuit is open, interactive callers get the last known answer instead.
      *
      * @param user Spotify user.
      * @return Response map from Spotify API or {"is_playing": false} if none.
      */
     public Map<String, Object> getNowPlaying(UserInfo user) {
+        String userId = user.getSpotifyUserId();
+        try {
+            return nowPlayingCache.get(userId, () -> fetchNowPlaying(user));
+
+        } catch (SpotifyThrottledException e) {
+            throw e;
+        } catch (SpotifyUnavailableException e) {
+            // Background work must not act on stale playback state
+            if (spotifyGateway.isBackground()) throw e;
+            log.debug("🔌 {}, serving last known now-playing for {}", e.getMessage(), userId);
+            Map<String, Object> last = nowPlayingCache.lastKnown(userId);
+            return last != null ? last : Map.of("is_playing", false);
+        } catch (Exception e) {
+            log.error("❌ Error fetching 'Now Playing' for user {}", userId, e);
+            return Map.of("error", "Failed to fetch currently playing track");
+        }
+    }
+
+    /**
+     * Asks Spotify for the currently playing track and puts it into cooldown.
+     */
+    private Map<String, Object> fetchNowPlaying(UserInfo user) {
         String url = spotifyApiUrl + "/me/player/currently-playing";
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setBearerAuth(user.getAccessToken());
-        HttpEntity<Void> entity = new HttpEntity<>(headers);
+        ResponseEntity<SpotifyPlayback> response = spotifyGateway.call("now-playing", user, token ->
+                restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(authHeaders(token)), SpotifyPlayback.class));
+        if (response.getStatusCode() != HttpStatus.OK || response.getBody() == null) {
+            return Map.of("is_playing", false);
+        }
+        SpotifyPlayback playback = response.getBody();
 
+        // ✅ NEW: Cooldown ekleme
         try {
-            ResponseEntity<Map> response = restTemplate.exchange(url, HttpMethod.GET, entity, Map.class);
-            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-                Map<String, Object> body = response.getBody();
+            if (playback.isPlaying() && playback.item() != null) {
+                String currentTrackId = playback.item().id();
 
-                // ✅ NEW: Cooldown ekleme
-                try {
-                    boolean isPlaying = Boolean.TRUE.equals(body.get("is_playing"));
-                    if (isPlaying && body.containsKey("item")) {
-                        Map<String, Object> item = (Map<String, Object>) body.get("item");
-                        String currentTrackId = (String) item.get("id");
-
-                        if (currentTrackId != null && !currentTrackId.isBlank()) {
-                            voteService.addPlayedSong(user.getSpotifyUserId(), currentTrackId);
-                            log.debug("🕐 Added to cooldown: {} for user {}", currentTrackId, user.getSpotifyUserId());
-                        }
-                    }
-                } catch (Exception cooldownError) {
-                    log.warn("⚠️ Failed to update cooldown for user {}", user.getSpotifyUserId(), cooldownError);
+                if (currentTrackId != null && !currentTrackId.isBlank()) {
+                    voteService.addPlayedSong(user.getSpotifyUserId(), currentTrackId);
+                    log.debug("🕐 Added to cooldown: {} for user {}", currentTrackId, user.getSpotifyUserId());
                 }
-
-                return body;
             }
-            return Map.of("is_playing", false);
-
-        } catch (HttpClientErrorException.Unauthorized e) {
-            UserInfo refreshed = spotifyRefreshService.refreshAccessToken(user);
-            return getNowPlaying(refreshed);
-
-        } catch (Exception e) {
-            log.error("❌ Error fetching 'Now Playing' for user {}", user.getSpotifyUserId(), e);
-            return Map.of("error", "Failed to fetch currently playing track");
+        } catch (Exception cooldownError) {
+            log.warn("⚠️ Failed to update cooldown for user {}", user.getSpotifyUserId(), cooldownError);
         }
+
+        return playback.toMap();
     }
 
 
@@ -274,45 +250,26 @@ public class SpotifyService {
     public Map<String, Object> getQueue(UserInfo user) {
         String url = spotifyApiUrl + "/me/player/queue";
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setBearerAuth(user.getAccessToken());
-        HttpEntity<Void> entity = new HttpEntity<>(headers);
-
         try {
-            ResponseEntity<Map> response = restTemplate.exchange(url, HttpMethod.GET, entity, Map.class);
-            Map<String, Object> body = response.getBody();
-            if (body == null) return Map.of();
-
-            List<Map<String, Object>> queue = (List<Map<String, Object>>) body.get("queue");
-            if (queue == null) queue = new ArrayList<>();
-
-            Map<String, Long> votes = voteService.getActiveVotes(user.getSpotifyUserId());
-            List<String> cooldown = voteService.getCooldownTracks(user.getSpotifyUserId());
-
-            // add votes
-            queue.forEach(track -> {
-                String id = (String) track.get("id");
-                track.put("votes", votes.getOrDefault(id, 0L));
-            });
-
-            // sort by votes descending
-            queue.sort(Comparator.comparingLong((Map<String, Object> t) ->
-                    (long) t.getOrDefault("votes", 0L)).reversed());
-
-            // cooldown to bottom
-            queue.sort((a, b) -> {
-                boolean aCool = cooldown.contains(a.get("id"));
-                boolean bCool = cooldown.contains(b.get("id"));
-                return Boolean.compare(aCool, bCool);
-            });
-
-            body.put("queue", queue);
+            ResponseEntity<SpotifyQueue> response = spotifyGateway.call("queue", user, token ->
+                    restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(authHeaders(token)), SpotifyQueue.class));
+            SpotifyQueue playerQueue = response.getBody();
+            if (playerQueue == null) return Map.of();
+
+            List<SpotifyTrack> queue = playerQueue.queue() != null
+                    ? playerQueue.queue().stream().filter(Objects::nonNull).toList()
+                    : List.of();
+
+            // ranked by votes, cooldown to bottom
+            RankedTracks ranked = rankTracks(queue,
+                    voteService.getRankedTracks(user.getSpotifyUserId()),
+                    voteService.getCooldownTracks(user.getSpotifyUserId()));
+
+            Map<String, Object> body = new HashMap<>();
+            body.put("currently_playing", playerQueue.currentlyPlaying() != null ? playerQueue.currentlyPlaying().toMap() : null);
+            body.put("queue", ranked.all().stream().map(RankedTrack::toMap).toList());
             return body;
 
-        } catch (HttpClientErrorException.Unauthorized e) {
-            UserInfo refreshed = spotifyRefreshService.refreshAccessToken(user);
-            return getQueue(refreshed);
-
         } catch (Exception e) {
             log.error("❌ Failed to fetch Spotify queue for user {}", user.getSpotifyUserId(), e);
             return Map.of("error", "Queue unavailable");
@@ -333,21 +290,16 @@ public class SpotifyService {
     public String createJukeboxPlaylist(UserInfo user) {
         String url = spotifyApiUrl + "/users/" + user.getSpotifyUserId() + "/playlists";
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setBearerAuth(user.getAccessToken());
-        headers.setContentType(MediaType.APPLICATION_JSON);
-
         Map<String, Object> body = Map.of(
                 "name", "🎵 Jukebox - " + System.currentTimeMillis(),
                 "description", "Dynamic voting-based playlist",
                 "public", false
         );
 
-        HttpEntity<Map<String, Object>> entity = new HttpEntity<>(body, headers);
-
         try {
-            ResponseEntity<Map> response = restTemplate.exchange(url, HttpMethod.POST, entity, Map.class);
-            String playlistId = (String) response.getBody().get("id");
+            ResponseEntity<SpotifyPlaylist> response = spotifyGateway.call("create-playlist", user, token ->
+                    restTemplate.exchange(url, HttpMethod.POST, new HttpEntity<>(body, jsonHeaders(token)), SpotifyPlaylist.class));
+            String playlistId = response.getBody().getId();
 
             user.setJukeboxPlaylistId(playlistId);
             userService.save(user);
@@ -355,10 +307,6 @@ public class SpotifyService {
             log.info("✅ Created Jukebox playlist for user {}", user.getSpotifyUserId());
             return playlistId;
 
-        } catch (HttpClientErrorException.Unauthorized e) {
-            UserInfo refreshed = spotifyRefreshService.refreshAccessToken(user);
-            return createJukeboxPlaylist(refreshed);
-
         } catch (Exception e) {
             log.error("❌ Failed to create Jukebox playlist for {}", user.getSpotifyUserId(), e);
             throw new RuntimeException("Playlist creation failed");
@@ -366,38 +314,124 @@ public class SpotifyService {
     }
 
     /**
-     * Fetches the tracks from a given Spotify playlist.
+     * Fetches the tracks from a given Spotify playlist. Tracks are served from
+     * the {@link PlaylistTrackCache} as long as the playlist's {@code snapshot_id}
+     * is unchanged; otherwise all pages are fetched (see {@link #fetchPlaylistTracks}).
+     * While the endpoint's circuit is open, interactive callers get the last
+     * fetched tracks instead.
      *
      * @param user       Spotify user.
      * @param playlistId Playlist ID.
-     * @return List of track maps, each containing Spotify track metadata.
+     * @return the playlist's tracks, in playlist order (immutable).
      */
-    public List<Map<String, Object>> getPlaylistTracks(UserInfo user, String playlistId) {
-        String url = spotifyApiUrl + "/playlists/" + playlistId + "/tracks";
+    public List<SpotifyTrack> getPlaylistTracks(UserInfo user, String playlistId) {
+        try {
+            List<SpotifyTrack> cached = playlistTrackCache.fresh(playlistId);
+            if (cached != null) return cached;
+
+            String snapshotId = getPlaylistSnapshotId(user, playlistId);
+            cached = playlistTrackCache.validate(playlistId, snapshotId);
+            if (cached != null) return cached;
+
+            List<SpotifyTrack> tracks = fetchPlaylistTracks(user, playlistId);
+            playlistTrackCache.put(playlistId, snapshotId, tracks);
+            return tracks;
+
+        } catch (SpotifyThrottledException e) {
+            throw e;
+        } catch (SpotifyUnavailableException e) {
+            List<SpotifyTrack> cached = playlistTrackCache.lastKnown(playlistId);
+            if (spotifyGateway.isBackground() || cached == null) throw e;
+            log.debug("🔌 {}, serving cached tracks of playlist {}", e.getMessage(), playlistId);
+            return cached;
+        } catch (Exception e) {
+            log.error("❌ Failed to fetch playlist tracks for {}", playlistId, e);
+            return Collections.emptyList();
+        }
+    }
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setBearerAuth(user.getAccessToken());
-        HttpEntity<Void> entity = new HttpEntity<>(headers);
+    /**
+     * Fetches all tracks of a playlist. The first page tells the playlist's
+     * {@code total}; the remaining pages are then fetched concurrently, at most
+     * {@code spotify.playlist.page-parallelism} at a time. Each page is
+     * decoded straight into {@link SpotifyTrack} records, restricted to
+     * {@link SpotifyPlaylistPage#FIELDS}, and its tracks are appended in
+     * playlist order as soon as it and the pages before it have arrived.
+     * No map trees are built: the records flow unchanged into the cache and
+     * the ranking, and maps are only made for clients.
+     *
+     * The ranking itself needs every track (unvoted tracks keep their
+     * playlist order), so the records are collected into one flat list.
+     *
+     * A page that cannot be fetched fails the whole call: a truncated list
+     * would be written back by {@link #replacePlaylistTracks} and drop tracks.
+     *
+     * @param user       Spotify user.
+     * @param playlistId Playlist ID.
+     * @return the playlist's tracks, in playlist order (immutable)
+     */
+    private List<SpotifyTrack> fetchPlaylistTracks(UserInfo user, String playlistId) {
+        String url = spotifyApiUrl + "/playlists/" + playlistId + "/tracks?fields=" + SpotifyPlaylistPage.FIELDS
+                + "&limit=" + PLAYLIST_PAGE_SIZE + "&offset=";
+
+        SpotifyPlaylistPage first = fetchPlaylistPage(user, url, 0);
+        int total = first.total();
+        List<SpotifyTrack> tracks = new ArrayList<>(Math.max(total, PLAYLIST_PAGE_SIZE));
+        addPageTracks(first, tracks);
+        if (total <= PLAYLIST_PAGE_SIZE) return Collections.unmodifiableList(tracks);
+
+        Semaphore permits = new Semaphore(playlistPageParallelism);
+        List<CompletableFuture<SpotifyPlaylistPage>> pages = new ArrayList<>();
+        for (int offset = PLAYLIST_PAGE_SIZE; offset < total; offset += PLAYLIST_PAGE_SIZE) {
+            int pageOffset = offset;
+            pages.add(spotifyGateway.async(() -> {
+                permits.acquireUninterruptibly();
+                try {
+                    return fetchPlaylistPage(user, url, pageOffset);
+                } finally {
+                    permits.release();
+                }
+            }));
+        }
 
         try {
-            ResponseEntity<Map> response = restTemplate.exchange(url, HttpMethod.GET, entity, Map.class);
-            List<Map<String, Object>> items = (List<Map<String, Object>>) response.getBody().get("items");
+            pages.forEach(page -> addPageTracks(page.join(), tracks));
+        } catch (CompletionException e) {
+            pages.forEach(page -> page.cancel(false));
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+        return Collections.unmodifiableList(tracks);
+    }
 
-            if (items == null) return Collections.emptyList();
-            return items.stream()
-                    .map(i -> (Map<String, Object>) i.get("track"))
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toList());
+    private SpotifyPlaylistPage fetchPlaylistPage(UserInfo user, String url, int offset) {
+        ResponseEntity<SpotifyPlaylistPage> response = spotifyGateway.call("playlist-tracks", user, token ->
+                restTemplate.exchange(url + offset, HttpMethod.GET, new HttpEntity<>(authHeaders(token)), SpotifyPlaylistPage.class));
+        return response.getBody() != null ? response.getBody() : new SpotifyPlaylistPage(0, List.of());
+    }
 
-        } catch (HttpClientErrorException.Unauthorized e) {
-            UserInfo refreshed = spotifyRefreshService.refreshAccessToken(user);
-            return getPlaylistTracks(refreshed, playlistId);
-        } catch (Exception e) {
-            log.error("❌ Failed to fetch playlist tracks for {}", playlistId, e);
-            return Collections.emptyList();
+    private static void addPageTracks(SpotifyPlaylistPage page, List<SpotifyTrack> tracks) {
+        if (page.items() == null) return;
+        for (SpotifyPlaylistPage.Item item : page.items()) {
+            if (item != null && item.track() != null) tracks.add(item.track());
         }
     }
 
+    /**
+     * Fetches only the {@code snapshot_id} of a playlist, which changes with every edit.
+     *
+     * @param user       Spotify user.
+     * @param playlistId Playlist ID.
+     * @return the playlist's current snapshot ID
+     */
+    private String getPlaylistSnapshotId(UserInfo user, String playlistId) {
+        String url = spotifyApiUrl + "/playlists/" + playlistId + "?fields=snapshot_id";
+
+        ResponseEntity<SpotifySnapshot> response = spotifyGateway.call("playlist-snapshot", user, token ->
+                restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(authHeaders(token)), SpotifySnapshot.class));
+        return response.getBody() != null ? response.getBody().snapshotId() : null;
+    }
+
     /**
      * Legacy method name - delegates to getUserPlaylists()
      * Kept for backwards compatibility with existing code.
@@ -422,7 +456,9 @@ public class SpotifyService {
 
     /**
      * Updates the user's Jukebox playlist order based on current votes.
-     * Keeps the currently playing song at the top.
+     * Keeps the currently playing song at the top. Skipped entirely while
+     * votes, cooldowns, the playing track and the playlist are unchanged
+     * since the last update (see {@link PlaylistOrderFingerprints}).
      *
      * @param user Spotify user whose Jukebox playlist will be updated.
      */
@@ -434,7 +470,11 @@ public class SpotifyService {
                 return;
             }
 
-            // 1️⃣ Fetch currently playing track
+            // 0️⃣ Read the vote epoch first, so votes arriving during the update trigger the next one
+            String ownerId = user.getSpotifyUserId();
+            long voteEpoch = voteService.getVoteEpoch(ownerId);
+
+            // 1️⃣ Fetch currently playing track (usually served by the now-playing cache)
             Map<String, Object> nowPlaying = getNowPlaying(user);
             String currentUri = null, currentId = null;
             if (nowPlaying != null && nowPlaying.containsKey("item")) {
@@ -443,8 +483,14 @@ public class SpotifyService {
                 currentUri = (String) item.get("uri");
             }
 
+            // Nothing changed since the last update: skip fetching, sorting and writing
+            if (orderFingerprints.unchanged(ownerId, voteEpoch, currentId, playlistTrackCache.snapshotId(playlistId))) {
+                log.debug("⏭️ No vote or playback changes for {}, skipping playlist update", ownerId);
+                return;
+            }
+
             // 2️⃣ Fetch playlist tracks
-            List<Map<String, Object>> currentTracks = getPlaylistTracks(user, playlistId);
+            List<SpotifyTrack> currentTracks = getPlaylistTracks(user, playlistId);
             if (currentTracks.isEmpty()) {
                 log.warn("⚠️ Jukebox playlist is empty for {}", user.getSpotifyUserId());
                 return;
@@ -463,18 +509,104 @@ public class SpotifyService {
                 orderedUris.add(0, currentUri);
             }
 
-            // 5️⃣ Replace playlist content
-            replacePlaylistTracks(user, playlistId, orderedUris);
-            log.info("✅ Updated Jukebox playlist order for {}", user.getSpotifyUserId());
+            // 5️⃣ Move only the tracks that changed places; rewrite if that takes too many moves
+            if (orderFingerprints.isWritten(ownerId, playlistTrackCache.snapshotId(playlistId), orderedUris)) {
+                orderFingerprints.record(ownerId, voteEpoch, currentId, playlistTrackCache.snapshotId(playlistId), orderedUris, false);
+                log.debug("⏭️ Jukebox playlist of {} already in order", ownerId);
+                return;
+            }
+            List<String> currentUris = currentTracks.stream().map(SpotifyTrack::uri).toList();
+            List<PlaylistReorderPlanner.Move> moves = PlaylistReorderPlanner.plan(currentUris, orderedUris);
+            if (moves == null || moves.size() > maxReorderMoves) {
+                replacePlaylistTracks(user, playlistId, orderedUris);
+            } else if (!moves.isEmpty()) {
+                reorderPlaylistTracks(user, playlistId, moves, orderedUris);
+            }
+            orderFingerprints.record(ownerId, voteEpoch, currentId, playlistTrackCache.snapshotId(playlistId),
+                    orderedUris, moves == null || !moves.isEmpty());
 
+            if (moves != null && moves.isEmpty()) {
+                log.debug("⏭️ Jukebox playlist of {} already in order", ownerId);
+            } else {
+                log.info("✅ Updated Jukebox playlist order for {}", ownerId);
+            }
 
         } catch (Exception e) {
-            log.error("❌ Failed to update Jukebox playlist for {}", user.getSpotifyUserId(), e);
+            if (isDeferred(e)) {
+                log.info("⏳ Spotify unavailable or rate-limited: deferring playlist update for {} to the next cycle", user.getSpotifyUserId());
+            } else {
+                log.error("❌ Failed to update Jukebox playlist for {}", user.getSpotifyUserId(), e);
+            }
+        }
+    }
+
+    /**
+     * Applies planned reorder operations (see {@link PlaylistReorderPlanner}),
+     * each one chained on the {@code snapshot_id} returned by the previous.
+     * Unlike a rewrite, an interrupted reorder leaves every track in the
+     * playlist; the next cycle plans from wherever it stopped.
+     *
+     * @param user        Spotify user.
+     * @param playlistId  Target playlist ID.
+     * @param moves       Moves to apply, in order.
+     * @param orderedUris The playlist's track URIs once all moves are applied.
+     */
+    private void reorderPlaylistTracks(UserInfo user, String playlistId,
+                                       List<PlaylistReorderPlanner.Move> moves, List<String> orderedUris) {
+        String url = spotifyApiUrl + "/playlists/" + playlistId + "/tracks";
+
+        // Only the first call may be deferred; a failed first move leaves nothing applied
+        String firstSnapshot;
+        try {
+            firstSnapshot = reorderRange(user, url, moves.get(0), playlistTrackCache.snapshotId(playlistId));
+        } catch (RuntimeException e) {
+            playlistTrackCache.invalidate(playlistId);
+            throw e;
+        }
+
+        // The chained moves stay background calls, so a long reorder cannot use up the
+        // user's interactive budget; if the governor defers one, the chain stops there
+        String snapshotId = spotifyGateway.withPriority(SpotifyRateGovernor.Priority.BACKGROUND, () -> {
+            String latest = firstSnapshot;
+            for (int i = 1; i < moves.size(); i++) {
+                try {
+                    latest = reorderRange(user, url, moves.get(i), latest);
+                } catch (Exception e) {
+                    // Later moves assume the earlier ones were applied
+                    log.warn("⚠️ Reordering playlist {} stopped after {} of {} moves", playlistId, i, moves.size(), e);
+                    return null;
+                }
+            }
+            return latest;
+        });
+
+        if (snapshotId != null) {
+            playlistTrackCache.written(playlistId, snapshotId, orderedUris);
+        } else {
+            playlistTrackCache.invalidate(playlistId);
         }
+        log.debug("↕️ Reordered playlist {} with {} moves", playlistId, moves.size());
+    }
+
+    /**
+     * @param snapshotId playlist version the move's positions refer to ({@code null} for the latest)
+     * @return the playlist's snapshot ID after the move
+     */
+    private String reorderRange(UserInfo user, String url, PlaylistReorderPlanner.Move move, String snapshotId) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("range_start", move.rangeStart());
+        body.put("range_length", move.rangeLength());
+        body.put("insert_before", move.insertBefore());
+        if (snapshotId != null) body.put("snapshot_id", snapshotId);
+
+        ResponseEntity<SpotifySnapshot> response = spotifyGateway.call("playlist-write", user, token ->
+                restTemplate.exchange(url, HttpMethod.PUT, new HttpEntity<>(body, jsonHeaders(token)), SpotifySnapshot.class));
+        return response.getBody() != null ? response.getBody().snapshotId() : null;
     }
 
     /**
      * Replaces the playlist content with a new list of tracks, keeping Spotify's batch limit (100 tracks/request).
+     * The resulting snapshot is recorded in the {@link PlaylistTrackCache}, so the rewrite does not cause a refetch.
      *
      * @param user       Spotify user.
      * @param playlistId Target playlist ID.
@@ -483,91 +615,152 @@ public class SpotifyService {
     private void replacePlaylistTracks(UserInfo user, String playlistId, List<String> uris) {
         String url = spotifyApiUrl + "/playlists/" + playlistId + "/tracks";
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setBearerAuth(user.getAccessToken());
-        headers.setContentType(MediaType.APPLICATION_JSON);
-
         final int batchSize = 100;
 
-        for (int i = 0; i < uris.size(); i += batchSize) {
-            List<String> batch = uris.subList(i, Math.min(i + batchSize, uris.size()));
-            Map<String, Object> body = Map.of("uris", batch);
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(body, headers);
-
-            try {
-                if (i == 0)
-                    restTemplate.exchange(url, HttpMethod.PUT, entity, Void.class);
-                else
-                    restTemplate.exchange(url, HttpMethod.POST, entity, Void.class);
+        // The first PUT may still be deferred; once it went out, the remaining
+        // batches are sent as interactive calls so the playlist is not left truncated
+        String firstSnapshot;
+        try {
+            firstSnapshot = putBatch(user, url, HttpMethod.PUT, uris.subList(0, Math.min(batchSize, uris.size())));
+        } catch (RuntimeException e) {
+            playlistTrackCache.invalidate(playlistId);
+            throw e;
+        }
 
-            } catch (HttpClientErrorException.Unauthorized e) {
-                UserInfo refreshed = spotifyRefreshService.refreshAccessToken(user);
-                replacePlaylistTracks(refreshed, playlistId, uris);
-                return;
-            } catch (Exception e) {
-                log.warn("⚠️ Failed to replace tracks in playlist {}", playlistId, e);
+        // The chained moves stay background calls, so a long reorder cannot use up the
+        // user's interactive budget; if the governor defers one, the chain stops there
+        String snapshotId = spotifyGateway.withPriority(SpotifyRateGovernor.Priority.BACKGROUND, () -> {
+            String latest = firstSnapshot;
+            boolean complete = true;
+            for (int i = batchSize; i < uris.size(); i += batchSize) {
+                List<String> batch = uris.subList(i, Math.min(i + batchSize, uris.size()));
+                try {
+                    latest = putBatch(user, url, HttpMethod.POST, batch);
+                } catch (Exception e) {
+                    complete = false;
+                    log.warn("⚠️ Failed to replace tracks in playlist {}", playlistId, e);
+                }
             }
+            return complete ? latest : null;
+        });
+
+        if (snapshotId != null) {
+            playlistTrackCache.written(playlistId, snapshotId, uris);
+        } else {
+            playlistTrackCache.invalidate(playlistId);
         }
     }
 
     /**
-     * Sorts playlist tracks based on active votes and cooldown rules.
+     * @return the playlist's snapshot ID after the batch was written
+     */
+    private String putBatch(UserInfo user, String url, HttpMethod method, List<String> batch) {
+        Map<String, Object> body = Map.of("uris", batch);
+        ResponseEntity<SpotifySnapshot> response = spotifyGateway.call("playlist-write", user, token ->
+                restTemplate.exchange(url, method, new HttpEntity<>(body, jsonHeaders(token)), SpotifySnapshot.class));
+        return response.getBody() != null ? response.getBody().snapshotId() : null;
+    }
+
+    /**
+     * Sorts playlist tracks based on active votes (or decayed scores, see
+     * {@link VoteService#getPlaylistRanking}) and cooldown rules.
      *
      * @param user   Spotify user.
      * @param tracks List of playlist tracks.
      * @return Ordered list of Spotify track URIs.
      */
-    private List<String> sortPlaylistByVotes(UserInfo user, List<Map<String, Object>> tracks) {
-        Map<String, Long> votes = voteService.getActiveVotes(user.getSpotifyUserId());
-        List<String> cooldownTracks = voteService.getCooldownTracks(user.getSpotifyUserId());
+    private List<String> sortPlaylistByVotes(UserInfo user, List<SpotifyTrack> tracks) {
+        RankedTracks ranked = rankTracks(
+                tracks.stream().filter(t -> t.id() != null && t.uri() != null).toList(),
+                voteService.getPlaylistRanking(user.getSpotifyUserId()),
+                voteService.getCooldownTracks(user.getSpotifyUserId()));
 
-        // Normalize helper for track ID comparison
-        Function<String, String> normalize = ref -> {
-            if (ref == null) return null;
-            return ref.startsWith("spotify:track:") ? ref.substring("spotify:track:".length()) : ref;
-        };
-
-        List<Map<String, Object>> voted = new ArrayList<>();
-        List<Map<String, Object>> unvoted = new ArrayList<>();
-        List<Map<String, Object>> cooldown = new ArrayList<>();
-
-        for (Map<String, Object> track : tracks) {
-            String trackId = (String) track.get("id");
-            String uri = (String) track.get("uri");
-
-            if (trackId == null || uri == null) continue;
+        List<String> orderedUris = new ArrayList<>();
+        ranked.all().forEach(t -> orderedUris.add(t.track().uri()));
 
-            String normalizedId = normalize.apply(trackId);
-            String normalizedUri = normalize.apply(uri);
+        log.info("📊 Sorted playlist → {} voted | {} unvoted | {} cooldown",
+                ranked.voted().size(), ranked.unvoted().size(), ranked.cooldown().size());
 
-            boolean isCooldown = cooldownTracks.stream()
-                    .anyMatch(t -> t.equals(normalizedId) || t.equals(normalizedUri));
+        return orderedUris;
+    }
 
-            long count = votes.getOrDefault(normalizedId,
-                    votes.getOrDefault(normalizedUri, 0L));
+    /**
+     * Orders tracks by walking the session's vote ranking instead of sorting:
+     * voted tracks in ranking order, then unvoted tracks in their original
+     * order, then tracks in cooldown (voted ones first, by ranking).
+     * Every track is paired with its current vote count.
+     *
+     * @param tracks   Spotify tracks (may contain the same track more than once)
+     * @param ranking  vote ranking of the session, highest first
+     * @param cooldown IDs of the tracks in cooldown
+     * @return the tracks split into voted, unvoted and cooldown groups
+     */
+    private RankedTracks rankTracks(List<SpotifyTrack> tracks,
+                                    List<TrackVote> ranking,
+                                    Collection<String> cooldown) {
+        // Ranking and cooldown IDs are already canonical; track IDs are normalized once here
+        Set<String> cooldownIds = new HashSet<>(cooldown);
+        String[] ids = new String[tracks.size()];
+        Map<String, List<Integer>> byId = new HashMap<>();
+        for (int i = 0; i < tracks.size(); i++) {
+            SpotifyTrack track = tracks.get(i);
+            ids[i] = TrackIds.normalize(track.id() != null ? track.id() : track.uri());
+            byId.computeIfAbsent(ids[i], k -> new ArrayList<>()).add(i);
+        }
 
-            if (isCooldown) {
-                cooldown.add(track);
-            } else if (count > 0) {
-                track.put("votes", count);
-                voted.add(track);
-            } else {
-                unvoted.add(track);
+        // Walking the ranking is one lookup per voted track
+        boolean[] placed = new boolean[tracks.size()];
+        List<RankedTrack> voted = new ArrayList<>();
+        List<RankedTrack> cooled = new ArrayList<>();
+        for (TrackVote rank : ranking) {
+            List<Integer> matches = byId.get(rank.trackId());
+            if (matches == null) continue;
+            for (int i : matches) {
+                placed[i] = true;
+                RankedTrack ranked = new RankedTrack(tracks.get(i), rank.votes());
+                (cooldownIds.contains(rank.trackId()) ? cooled : voted).add(ranked);
             }
         }
 
-        voted.sort(Comparator.comparingLong(
-                (Map<String, Object> t) -> (long) t.get("votes")).reversed());
+        List<RankedTrack> unvoted = new ArrayList<>();
+        for (int i = 0; i < tracks.size(); i++) {
+            if (placed[i]) continue;
+            RankedTrack ranked = new RankedTrack(tracks.get(i), 0L);
+            (cooldownIds.contains(ids[i]) ? cooled : unvoted).add(ranked);
+        }
 
-        List<String> orderedUris = new ArrayList<>();
-        voted.forEach(t -> orderedUris.add((String) t.get("uri")));
-        unvoted.forEach(t -> orderedUris.add((String) t.get("uri")));
-        cooldown.forEach(t -> orderedUris.add((String) t.get("uri")));
+        return new RankedTracks(voted, unvoted, cooled);
+    }
 
-        log.info("📊 Sorted playlist → {} voted | {} unvoted | {} cooldown",
-                voted.size(), unvoted.size(), cooldown.size());
+    /**
+     * A track with its current vote count.
+     */
+    private record RankedTrack(SpotifyTrack track, long votes) {
+
+        /**
+         * @return the track's client map, with its {@code votes} count
+         */
+        Map<String, Object> toMap() {
+            Map<String, Object> map = track.toMap();
+            map.put("votes", votes);
+            return map;
+        }
+    }
 
-        return orderedUris;
+    /**
+     * Tracks grouped by {@link #rankTracks}, each group already in order.
+     */
+    private record RankedTracks(List<RankedTrack> voted,
+                                List<RankedTrack> unvoted,
+                                List<RankedTrack> cooldown) {
+
+        List<RankedTrack> all() {
+            List<RankedTrack> all = new ArrayList<>(voted.size() + unvoted.size() + cooldown.size());
+            all.addAll(voted);
+            all.addAll(unvoted);
+            all.addAll(cooldown);
+            return all;
+        }
     }
 
 
@@ -607,48 +800,47 @@ public class SpotifyService {
                 return;
             }
 
+            CompletableFuture<List<SpotifyTrack>> tracksCall =
+                    spotifyGateway.async(() -> getPlaylistTracks(user, playlistId));
+
             Map<String, Object> nowPlaying = getNowPlaying(user);
             String currentTrackId = nowPlaying.containsKey("item")
                     ? (String) ((Map<?, ?>) nowPlaying.get("item")).get("id")
                     : null;
 
-            List<Map<String, Object>> playlistTracks = getPlaylistTracks(user, playlistId);
+            List<SpotifyTrack> playlistTracks = tracksCall.join();
             if (playlistTracks.isEmpty()) return;
 
-            Map<String, Long> votes = voteService.getActiveVotes(user.getSpotifyUserId());
             List<String> cooldown = voteService.getCooldownTracks(user.getSpotifyUserId());
 
-            // Filter out current + cooldown tracks
-            List<Map<String, Object>> votable = playlistTracks.stream()
-                    .filter(track -> {
-                        String id = (String) track.get("id");
-                        return id != null && !id.equals(currentTrackId) && !cooldown.contains(id);
-                    })
-                    .toList();
-
+            // Votable = in the playlist, not playing, not in cooldown
+            Map<String, SpotifyTrack> votable = new HashMap<>();
+            for (SpotifyTrack track : playlistTracks) {
+                String id = TrackIds.normalize(track.id());
+                if (id != null && !id.equals(currentTrackId) && !cooldown.contains(id)) {
+                    votable.putIfAbsent(id, track);
+                }
+            }
             if (votable.isEmpty()) return;
 
-            // Find top voted
-            Map<String, Object> topTrack = votable.stream()
-                    .max(Comparator.comparingLong(t ->
-                            votes.getOrDefault((String) t.get("id"), 0L)))
-                    .orElse(null);
-
-            if (topTrack == null) return;
+            // The ranking is ordered: the first votable entry is the top-voted track
+            for (TrackVote rank : voteService.getRankedTracks(user.getSpotifyUserId())) {
+                SpotifyTrack topTrack = votable.get(rank.trackId());
+                if (topTrack == null) continue;
 
-            String topTrackId = (String) topTrack.get("id");
-            long topVotes = votes.getOrDefault(topTrackId, 0L);
-
-            if (topVotes > 0) {
-                addToQueue(user, topTrackId);
+                addToQueue(user, rank.trackId());
                 log.info("✅ Added top-voted track '{}' ({} votes) to queue",
-                        topTrack.get("name"), topVotes);
-            } else {
-                log.info("⚠️ No votes available to reorder queue.");
+                        topTrack.name(), rank.votes());
+                return;
             }
+            log.info("⚠️ No votes available to reorder queue.");
 
         } catch (Exception e) {
-            log.error("❌ Failed to reorder queue for {}", user.getSpotifyUserId(), e);
+            if (isDeferred(e)) {
+                log.info("⏳ Spotify unavailable or rate-limited: deferring queue reorder for {}", user.getSpotifyUserId());
+            } else {
+                log.error("❌ Failed to reorder queue for {}", user.getSpotifyUserId(), e);
+            }
         }
     }
 
@@ -659,16 +851,13 @@ public class SpotifyService {
      * @param trackId Spotify track ID.
      */
     private void addToQueue(UserInfo user, String trackId) {
-        String url = spotifyApiUrl + "/me/player/queue?uri=spotify:track:" + trackId;
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.setBearerAuth(user.getAccessToken());
+        String url = spotifyApiUrl + "/me/player/queue?uri=" + TrackIds.toUri(trackId);
 
         try {
-            restTemplate.exchange(url, HttpMethod.POST, new HttpEntity<>(headers), Void.class);
-        } catch (HttpClientErrorException.Unauthorized e) {
-            UserInfo refreshed = spotifyRefreshService.refreshAccessToken(user);
-            addToQueue(refreshed, trackId);
+            spotifyGateway.call("add-to-queue", user, token ->
+                    restTemplate.exchange(url, HttpMethod.POST, new HttpEntity<>(authHeaders(token)), Void.class));
+        } catch (SpotifyThrottledException | SpotifyUnavailableException e) {
+            throw e;
         } catch (Exception e) {
             log.warn("⚠️ Failed to add track {} to queue for {}", trackId, user.getSpotifyUserId());
         }
@@ -686,23 +875,30 @@ public class SpotifyService {
             String playlistId = user.getJukeboxPlaylistId();
             if (playlistId == null) return Collections.emptyList();
 
+            CompletableFuture<List<SpotifyTrack>> tracksCall =
+                    spotifyGateway.async(() -> getPlaylistTracks(user, playlistId));
+
             Map<String, Object> nowPlaying = getNowPlaying(user);
             String currentTrackId = nowPlaying.containsKey("item")
                     ? (String) ((Map<?, ?>) nowPlaying.get("item")).get("id")
                     : null;
 
-            List<Map<String, Object>> tracks = getPlaylistTracks(user, playlistId);
+            List<SpotifyTrack> tracks = tracksCall.join();
 
-            List<Map<String, Object>> upNext = tracks.stream()
-                    .filter(t -> !Objects.equals(t.get("id"), currentTrackId))
+            List<SpotifyTrack> candidates = tracks.stream()
+                    .filter(t -> !Objects.equals(t.id(), currentTrackId))
                     .collect(Collectors.toList());
 
-            Map<String, Long> votes = voteService.getActiveVotes(user.getSpotifyUserId());
+            // Sıralama oy sıralamasından gelir; cooldown'daki şarkılar yerinde kalır
+            List<Map<String, Object>> upNext = rankTracks(candidates,
+                    voteService.getRankedTracks(user.getSpotifyUserId()), List.of())
+                    .all().stream()
+                    .map(RankedTrack::toMap)
+                    .collect(Collectors.toList());
 
             // ✅ Cooldown bilgisi ekle
             upNext.forEach(t -> {
                 String trackId = (String) t.get("id");
-                t.put("votes", votes.getOrDefault(trackId, 0L));
 
                 // Cooldown kontrolü
                 int cooldownRemaining = voteService.getCooldownRemaining(
@@ -713,9 +909,6 @@ public class SpotifyService {
                 t.put("inCooldown", cooldownRemaining > 0);
             });
 
-            upNext.sort(Comparator.comparingLong(
-                    (Map<String, Object> t) -> (long) t.getOrDefault("votes", 0L)).reversed());
-
             return upNext;
 
         } catch (Exception e) {
@@ -723,4 +916,30 @@ public class SpotifyService {
             return Collections.emptyList();
         }
     }
-}
\ No newline at end of file
+
+
+    // --------------------------------------------------------------------
+    // HELPERS
+    // --------------------------------------------------------------------
+
+    private static HttpHeaders authHeaders(String accessToken) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(accessToken);
+        return headers;
+    }
+
+    private static HttpHeaders jsonHeaders(String accessToken) {
+        HttpHeaders headers = authHeaders(accessToken);
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return headers;
+    }
+
+    /**
+     * @return whether the failure (or the failure of a joined call) means Spotify
+     *         was not called because of the rate limit or an open circuit
+     */
+    private static boolean isDeferred(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        return cause instanceof SpotifyThrottledException || cause instanceof SpotifyUnavailableException;
+    }
+}
@@ -0,0 +1,26 @@
+package org.bithub.service;
+
+/**
+ * Thrown when a Spotify call is not made because of the rate limit:
+ * either the {@link SpotifyRateGovernor} deferred it, or Spotify kept
+ * answering {@code 429 Too Many Requests}.
+ * <p>
+ * Background work catching it should simply try again on its next run.
+ * </p>
+ */
+public class SpotifyThrottledException extends RuntimeException {
+
+    private final long retryAfterMillis;
+
+    public SpotifyThrottledException(long retryAfterMillis) {
+        super("Spotify rate limit reached, retry in " + retryAfterMillis + " ms");
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    /**
+     * @return milliseconds after which the call is expected to be allowed again
+     */
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
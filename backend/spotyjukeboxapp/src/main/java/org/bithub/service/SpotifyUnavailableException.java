@@ -0,0 +1,23 @@
+package org.bithub.service;
+
+/**
+ * Thrown by {@link SpotifyCircuitBreakers} when a call to a Spotify endpoint
+ * is not made because the endpoint's circuit breaker is open or its
+ * bulkhead is full. Callers fall back to the last known data they have.
+ */
+public class SpotifyUnavailableException extends RuntimeException {
+
+    private final String endpoint;
+
+    public SpotifyUnavailableException(String endpoint, String reason) {
+        super("Spotify endpoint '" + endpoint + "' unavailable: " + reason);
+        this.endpoint = endpoint;
+    }
+
+    /**
+     * @return name of the endpoint that was not called
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+}
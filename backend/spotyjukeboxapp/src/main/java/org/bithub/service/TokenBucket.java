@@ -0,0 +1,89 @@
+package org.bithub.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * TokenBucket
+ * ------------------------------------------------------------------------
+ * A single lock-free token bucket, shared by {@link VoteRateLimiter} and
+ * {@link SpotifyRateGovernor}.
+ *
+ * The state packs the time of the last refill (upper 44 bits, milliseconds
+ * since an owner-defined start) and the available milli-tokens (lower 20 bits)
+ * into one {@link AtomicLong}, updated with a CAS loop. Capacity and refill
+ * rate are passed in by the owner, so a bucket costs a single long.
+ * 20 bits of milli-tokens hold at most {@link #MAX_CAPACITY} whole tokens;
+ * owners reject larger capacities when they are configured.
+ */
+final class TokenBucket {
+
+    static final int TOKEN_BITS = 20;
+    static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    static final long ONE_TOKEN = 1000;
+    /** Largest capacity, in whole tokens, that fits the token field. */
+    static final int MAX_CAPACITY = (int) (TOKEN_MASK / ONE_TOKEN);
+
+    private final AtomicLong state;
+
+    TokenBucket(long capacityMilli, long now) {
+        if (capacityMilli < ONE_TOKEN || capacityMilli > TOKEN_MASK) {
+            throw new IllegalArgumentException("Token bucket capacity out of range: " + capacityMilli + " milli-tokens");
+        }
+        this.state = new AtomicLong(pack(now, capacityMilli));
+    }
+
+    /**
+     * Takes one token.
+     *
+     * @return {@code 0} if a token was taken, otherwise the milliseconds until one is available
+     */
+    long tryAcquire(long now, long capacityMilli, double refillMilliPerMs) {
+        return tryAcquire(now, capacityMilli, refillMilliPerMs, 0);
+    }
+
+    /**
+     * Takes one token, but only while more than {@code reserveMilli}
+     * milli-tokens would remain; the reserve is left to other callers.
+     *
+     * @return {@code 0} if a token was taken, otherwise the milliseconds until one is available
+     */
+    long tryAcquire(long now, long capacityMilli, double refillMilliPerMs, long reserveMilli) {
+        long needed = ONE_TOKEN + reserveMilli;
+        while (true) {
+            long current = state.get();
+            long last = current >>> TOKEN_BITS;
+            long tokens = current & TOKEN_MASK;
+
+            long elapsed = Math.max(now - last, 0);
+            long refilled = Math.min(capacityMilli, tokens + (long) (elapsed * refillMilliPerMs));
+            // Only advance the clock by the time that produced whole milli-tokens
+            long refillTime = refilled == capacityMilli ? now : last + (long) ((refilled - tokens) / refillMilliPerMs);
+
+            if (refilled < needed) {
+                return (long) Math.ceil((needed - refilled) / refillMilliPerMs);
+            }
+            if (state.compareAndSet(current, pack(refillTime, refilled - ONE_TOKEN))) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Gives back a token taken by {@link #tryAcquire} when the call it was
+     * taken for did not happen after all.
+     */
+    void release(long capacityMilli) {
+        state.getAndUpdate(current -> {
+            long tokens = Math.min(capacityMilli, (current & TOKEN_MASK) + ONE_TOKEN);
+            return (current & ~TOKEN_MASK) | tokens;
+        });
+    }
+
+    long lastRefill() {
+        return state.get() >>> TOKEN_BITS;
+    }
+
+    private static long pack(long time, long tokens) {
+        return (time << TOKEN_BITS) | (tokens & TOKEN_MASK);
+    }
+}
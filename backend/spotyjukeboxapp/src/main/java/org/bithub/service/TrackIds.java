@@ -0,0 +1,45 @@
+package org.bithub.service;
+
+/**
+ * TrackIds
+ * ------------------------------------------------------------------------
+ * Canonical form of Spotify track references.
+ *
+ * Track IDs reach the backend as bare IDs ({@code 4uLU6hMCjMI75M1A2tKUQC})
+ * or as URIs ({@code spotify:track:4uLU6hMCjMI75M1A2tKUQC}). They are
+ * normalized once, at the boundary. Each session's tally then keeps one
+ * String per track, its map key, which the track's rank and vote entries
+ * reference instead of holding copies.
+ *
+ * IDs are deliberately not packed into 128-bit keys or per-session ordinals:
+ * a session has at most a few hundred tracks, so a String per track is a few
+ * kilobytes, while the memory that grows with traffic is per vote (voter
+ * sets, minute buckets), keyed by clientId. Without a primitive-collections
+ * dependency, compact keys would be boxed again in every concurrent map.
+ */
+public final class TrackIds {
+
+    private static final String URI_PREFIX = "spotify:track:";
+
+    private TrackIds() {
+    }
+
+    /**
+     * Returns the canonical track ID of an ID or {@code spotify:track:} URI.
+     *
+     * @param ref Spotify track ID or URI (may be {@code null})
+     * @return the bare track ID, or {@code null} for {@code null}
+     */
+    public static String normalize(String ref) {
+        if (ref == null) return null;
+        return ref.startsWith(URI_PREFIX) ? ref.substring(URI_PREFIX.length()) : ref;
+    }
+
+    /**
+     * @param trackId Spotify track ID
+     * @return the {@code spotify:track:} URI of the track
+     */
+    public static String toUri(String trackId) {
+        return URI_PREFIX + normalize(trackId);
+    }
+}
@@ -0,0 +1,154 @@
+package org.bithub.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bithub.model.VoteUpdate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * VoteBroadcaster
+ * ------------------------------------------------------------------------
+ * Coalesces vote updates before pushing them to {@code /topic/votes/{ownerId}}.
+ *
+ * Changes only mark the session as dirty; once per broadcast window
+ * ({@code jukebox.votes.broadcast-window-ms}) every dirty session gets
+ * a single {@link VoteUpdate} holding just the tracks whose count changed
+ * since the previous update, tagged with a per-session sequence number.
+ * Clients that miss an update resynchronize through {@link #snapshot(String)}.
+ *
+ * Streams are only created by changes, never by reads: a snapshot of a
+ * session without a stream carries sequence number {@code 0}. A session
+ * left without votes (expired or reset) is dropped by {@link #evict(String)}.
+ * A new stream numbers from the current time in milliseconds, above any
+ * sequence number handed out before, so clients see a gap and resynchronize.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class VoteBroadcaster {
+
+    private final VoteTallyStore voteTallyStore;
+    private final SimpMessagingTemplate messagingTemplate;
+
+    private final Set<String> dirtySessions = ConcurrentHashMap.newKeySet();
+    private final ConcurrentMap<String, SessionStream> streams = new ConcurrentHashMap<>();
+
+    /**
+     * Schedules a vote update for the session in the next broadcast window.
+     *
+     * @param ownerId Spotify user/session ID
+     */
+    public void markDirty(String ownerId) {
+        dirtySessions.add(ownerId);
+    }
+
+    /**
+     * Sends one delta per changed session.
+     */
+    @Scheduled(fixedDelayString = "${jukebox.votes.broadcast-window-ms:150}")
+    public void flush() {
+        for (String ownerId : dirtySessions) {
+            // Remove before reading so votes arriving meanwhile re-mark the session
+            if (!dirtySessions.remove(ownerId)) continue;
+
+            try {
+                stream(ownerId).publish(ownerId);
+            } catch (Exception e) {
+                log.warn("⚠️ Failed to broadcast votes for {}", ownerId, e);
+            }
+        }
+    }
+
+    /**
+     * Returns the full vote map of a session together with the sequence number
+     * of the last delta it includes. Pending changes are published first,
+     * so applying every delta with a higher sequence number keeps the client in sync.
+     * Sessions without a stream are answered with sequence number {@code 0}:
+     * the first delta of a stream created later is a gap and triggers a resync.
+     *
+     * @param ownerId Spotify user/session ID
+     * @return snapshot {@link VoteUpdate}
+     */
+    public VoteUpdate snapshot(String ownerId) {
+        SessionStream stream = streams.get(ownerId);
+        if (stream == null) {
+            return new VoteUpdate(0, true, Map.copyOf(voteTallyStore.counts(ownerId)));
+        }
+        return stream.snapshot(ownerId);
+    }
+
+    /**
+     * Publishes pending changes of a session and forgets it if it has no votes left.
+     *
+     * @param ownerId Spotify user/session ID
+     */
+    public void evict(String ownerId) {
+        dirtySessions.remove(ownerId);
+        try {
+            streams.computeIfPresent(ownerId, (id, stream) -> stream.drain(id) ? null : stream);
+        } catch (Exception e) {
+            log.warn("⚠️ Failed to broadcast votes for {}", ownerId, e);
+        }
+    }
+
+    private SessionStream stream(String ownerId) {
+        return streams.computeIfAbsent(ownerId, id -> new SessionStream(System.currentTimeMillis()));
+    }
+
+
+    // --------------------------------------------------------------------
+    // Per-session state
+    // --------------------------------------------------------------------
+
+    /**
+     * Last published state and sequence number of a session.
+     * Synchronized so that deltas and snapshots are numbered consistently.
+     */
+    private final class SessionStream {
+
+        private long seq;
+        private Map<String, Long> published = new HashMap<>();
+
+        SessionStream(long seq) {
+            this.seq = seq;
+        }
+
+        synchronized void publish(String ownerId) {
+            Map<String, Long> current = voteTallyStore.counts(ownerId);
+
+            Map<String, Long> delta = new HashMap<>();
+            current.forEach((trackId, count) -> {
+                if (!count.equals(published.get(trackId))) delta.put(trackId, count);
+            });
+            published.keySet().forEach(trackId -> {
+                if (!current.containsKey(trackId)) delta.put(trackId, 0L);
+            });
+            if (delta.isEmpty()) return;
+
+            published = new HashMap<>(current);
+            seq++;
+            messagingTemplate.convertAndSend("/topic/votes/" + ownerId, new VoteUpdate(seq, false, delta));
+        }
+
+        /**
+         * @return whether nothing is published anymore after sending pending changes
+         */
+        synchronized boolean drain(String ownerId) {
+            publish(ownerId);
+            return published.isEmpty();
+        }
+
+        synchronized VoteUpdate snapshot(String ownerId) {
+            publish(ownerId);
+            return new VoteUpdate(seq, true, Map.copyOf(published));
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package org.bithub.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * VoteClientIds
+ * ------------------------------------------------------------------------
+ * Issues the clientIds guests vote with, and recognizes them.
+ *
+ * A clientId is {@code <uuid>.<signature>}, signed with an HMAC-SHA256 key,
+ * so the server can tell its own clientIds apart from made-up ones without
+ * storing them. Votes are rate-limited per clientId, which gives every guest
+ * their own bucket even when a whole venue shares one address behind NAT
+ * or a reverse proxy. Issuing is itself rate-limited per address (see
+ * {@link VoteRateLimiter#tryIssue}), so rotating clientIds costs more than
+ * it gains.
+ *
+ * The key comes from {@code jukebox.votes.client-id.secret}. Without one, a
+ * random key is generated; clientIds then stop being valid on restart and
+ * guests simply request a new one.
+ */
+@Slf4j
+@Component
+public class VoteClientIds {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    /** Bytes of the HMAC kept in the clientId; 128 bits cannot be guessed. */
+    private static final int SIGNATURE_BYTES = 16;
+
+    private final SecretKeySpec key;
+
+    public VoteClientIds(@Value("${jukebox.votes.client-id.secret:}") String secret) {
+        byte[] keyBytes;
+        if (secret == null || secret.isBlank()) {
+            keyBytes = new byte[32];
+            new SecureRandom().nextBytes(keyBytes);
+            log.info("🔑 No jukebox.votes.client-id.secret set, clientIds are valid until restart.");
+        } else {
+            keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        this.key = new SecretKeySpec(keyBytes, ALGORITHM);
+    }
+
+    /**
+     * @return a new signed clientId
+     */
+    public String issue() {
+        String id = UUID.randomUUID().toString();
+        return id + "." + sign(id);
+    }
+
+    /**
+     * @param clientId clientId sent with a vote (may be {@code null})
+     * @return whether it was issued by {@link #issue()} with the current key
+     */
+    public boolean isValid(String clientId) {
+        if (clientId == null) return false;
+        int dot = clientId.lastIndexOf('.');
+        if (dot <= 0) return false;
+
+        byte[] expected = sign(clientId.substring(0, dot)).getBytes(StandardCharsets.US_ASCII);
+        byte[] actual = clientId.substring(dot + 1).getBytes(StandardCharsets.US_ASCII);
+        return MessageDigest.isEqual(expected, actual);
+    }
+
+    private String sign(String id) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            byte[] digest = mac.doFinal(id.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, SIGNATURE_BYTES));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 unavailable", e);
+        }
+    }
+}
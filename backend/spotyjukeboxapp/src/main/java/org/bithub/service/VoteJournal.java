@@ -0,0 +1,357 @@
+package org.bithub.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * VoteJournal
+ * ------------------------------------------------------------------------
+ * Append-only, memory-mapped journal of vote events, used to rebuild the
+ * in-memory tallies and cooldowns after a restart without relying on a
+ * persistent database.
+ *
+ * Layout:
+ *   • The journal directory holds fixed-size segment files
+ *     ({@code journal-<epochMillis>.seg}), each mapped into memory.
+ *   • Every record is {@code [int length][int crc32][payload]}, where the
+ *     payload is {@code [byte type][long epochMillis][ownerId][trackId][clientId?]}
+ *     and strings are {@code [short length][UTF-8 bytes]}.
+ *   • A zero length marks the end of a segment; torn or corrupt records
+ *     stop the replay of their segment.
+ *
+ * A new segment is started on every startup and whenever the current one
+ * is full; its name is the start time, moved forward past any existing
+ * segment. A segment is deleted once the segment after it was started more
+ * than {@code jukebox.journal.retention-hours} ago, as it cannot hold a
+ * newer event. Disabled with {@code jukebox.journal.enabled=false}.
+ */
+@Slf4j
+@Component
+public class VoteJournal {
+
+    /** Kinds of journaled events. */
+    public enum Type { VOTE, RESET, PLAYED }
+
+    /**
+     * A single journaled event.
+     *
+     * @param type     event kind
+     * @param at       when the event happened
+     * @param ownerId  Spotify user/session ID
+     * @param trackId  Spotify track ID
+     * @param clientId voting client (only for {@link Type#VOTE})
+     */
+    public record Entry(Type type, LocalDateTime at, String ownerId, String trackId, String clientId) {}
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final int HEADER_BYTES = 8;
+
+    @Value("${jukebox.journal.enabled:true}")
+    private boolean enabled;
+
+    @Value("${jukebox.journal.directory:data/journal}")
+    private Path directory;
+
+    @Value("${jukebox.journal.segment-size-mb:8}")
+    private int segmentSizeMb;
+
+    @Value("${jukebox.journal.retention-hours:24}")
+    private int retentionHours;
+
+    private Path activeSegment;
+    private long activeSegmentMillis;
+    private FileChannel activeChannel;
+    private MappedByteBuffer activeBuffer;
+
+    @PostConstruct
+    public void open() {
+        if (!enabled) return;
+        try {
+            Files.createDirectories(directory);
+            startSegment();
+        } catch (IOException e) {
+            log.error("❌ Failed to open vote journal in {}, journaling disabled.", directory, e);
+            enabled = false;
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (activeBuffer == null) return;
+        activeBuffer.force();
+        closeQuietly(activeChannel);
+        activeBuffer = null;
+    }
+
+    /**
+     * @return {@code true} if events are journaled (and can be replayed)
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+
+    // --------------------------------------------------------------------
+    // ✍️ APPEND
+    // --------------------------------------------------------------------
+
+    /** Journals an accepted vote. */
+    public void appendVote(String ownerId, String trackId, String clientId, LocalDateTime at) {
+        append(new Entry(Type.VOTE, at, ownerId, trackId, clientId));
+    }
+
+    /** Journals the reset of a track's votes. */
+    public void appendReset(String ownerId, String trackId) {
+        append(new Entry(Type.RESET, LocalDateTime.now(), ownerId, trackId, null));
+    }
+
+    /** Journals a played track (cooldown). */
+    public void appendPlayed(String ownerId, String trackId) {
+        append(new Entry(Type.PLAYED, LocalDateTime.now(), ownerId, trackId, null));
+    }
+
+    private synchronized void append(Entry entry) {
+        if (!enabled || activeBuffer == null) return;
+
+        byte[] payload;
+        try {
+            payload = encode(entry);
+        } catch (IllegalArgumentException e) {
+            log.warn("⚠️ Skipped journaling oversized {} event for {}", entry.type(), entry.ownerId());
+            return;
+        }
+        int size = HEADER_BYTES + payload.length;
+        try {
+            // Keep room for the zero length that terminates the segment
+            if (activeBuffer.remaining() < size + Integer.BYTES) {
+                if (activeBuffer.position() == 0) return;
+                activeBuffer.force();
+                closeQuietly(activeChannel);
+                startSegment();
+            }
+
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            activeBuffer.putInt(payload.length);
+            activeBuffer.putInt((int) crc.getValue());
+            activeBuffer.put(payload);
+        } catch (IOException e) {
+            log.error("❌ Failed to roll vote journal segment, journaling disabled.", e);
+            enabled = false;
+        }
+    }
+
+    /**
+     * Flushes mapped pages to disk so that journaled events also survive an OS crash.
+     */
+    @Scheduled(fixedDelayString = "${jukebox.journal.force-interval-ms:1000}")
+    public synchronized void force() {
+        if (activeBuffer != null) activeBuffer.force();
+    }
+
+
+    // --------------------------------------------------------------------
+    // ♻️ REPLAY & RETENTION
+    // --------------------------------------------------------------------
+
+    /**
+     * Reads every event of the previous runs, oldest first.
+     * The segment written by the current run is skipped.
+     *
+     * @param consumer receives each event in append order
+     * @return number of replayed events
+     */
+    public int replay(Consumer<Entry> consumer) {
+        if (!enabled) return 0;
+
+        int count = 0;
+        for (Path segment : segments()) {
+            if (segment.equals(activeSegment)) continue;
+            count += replaySegment(segment, consumer);
+        }
+        return count;
+    }
+
+    /**
+     * Deletes segments whose last possible write is older than the retention
+     * period: every event of a segment was written before the next segment
+     * was started. File modification times are not used, as writes through
+     * the mapping do not reliably update them.
+     */
+    @Scheduled(fixedRate = 3_600_000)
+    public void deleteExpiredSegments() {
+        if (!enabled) return;
+
+        long cutoff = System.currentTimeMillis() - retentionHours * 3_600_000L;
+        List<Path> segments = segments();
+        for (int i = 0; i < segments.size() - 1; i++) {
+            Path segment = segments.get(i);
+            if (segment.equals(activeSegment)) continue;
+
+            long nextStarted = startedAt(segments.get(i + 1));
+            if (nextStarted < 0 || nextStarted >= cutoff) continue;
+            try {
+                Files.deleteIfExists(segment);
+                log.info("🗑️ Deleted expired journal segment {}", segment.getFileName());
+            } catch (IOException e) {
+                log.warn("⚠️ Failed to delete journal segment {}", segment, e);
+            }
+        }
+    }
+
+    private int replaySegment(Path segment, Consumer<Entry> consumer) {
+        int count = 0;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            while (buffer.remaining() >= HEADER_BYTES) {
+                int length = buffer.getInt();
+                if (length <= 0 || length > buffer.remaining() - Integer.BYTES) break;
+
+                int checksum = buffer.getInt();
+                byte[] payload = new byte[length];
+                buffer.get(payload);
+
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) {
+                    log.warn("⚠️ Corrupt record in journal segment {}, skipping the rest.", segment.getFileName());
+                    break;
+                }
+
+                consumer.accept(decode(payload));
+                count++;
+            }
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            log.warn("⚠️ Failed to replay journal segment {}", segment, e);
+        }
+        return count;
+    }
+
+    private List<Path> segments() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(p -> {
+                        String name = p.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            log.warn("⚠️ Failed to list journal segments in {}", directory, e);
+            return new ArrayList<>();
+        }
+    }
+
+    private void startSegment() throws IOException {
+        List<Path> existing = segments();
+        long millis = Math.max(System.currentTimeMillis(), activeSegmentMillis + 1);
+        if (!existing.isEmpty()) {
+            millis = Math.max(millis, startedAt(existing.get(existing.size() - 1)) + 1);
+        }
+
+        while (true) {
+            // Zero-padded so that lexical order is chronological order
+            String name = String.format("%s%020d%s", SEGMENT_PREFIX, millis, SEGMENT_SUFFIX);
+            Path segment = directory.resolve(name);
+            try {
+                activeChannel = FileChannel.open(segment,
+                        StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            } catch (FileAlreadyExistsException e) {
+                // Created by another writer in the meantime: take the next millisecond
+                millis++;
+                continue;
+            }
+            activeSegment = segment;
+            activeSegmentMillis = millis;
+            activeBuffer = activeChannel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSizeMb * 1024L * 1024L);
+            log.info("📓 Writing vote journal segment {}", name);
+            return;
+        }
+    }
+
+    /**
+     * @return the start time encoded in a segment's name, or {@code -1} if it has none
+     */
+    private static long startedAt(Path segment) {
+        String name = segment.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            if (channel != null) channel.close();
+        } catch (IOException ignored) {
+            // nothing left to do for a segment that is being abandoned
+        }
+    }
+
+
+    // --------------------------------------------------------------------
+    // Encoding
+    // --------------------------------------------------------------------
+
+    private static byte[] encode(Entry entry) {
+        byte[] owner = entry.ownerId().getBytes(StandardCharsets.UTF_8);
+        byte[] track = entry.trackId().getBytes(StandardCharsets.UTF_8);
+        byte[] client = entry.clientId() == null ? new byte[0] : entry.clientId().getBytes(StandardCharsets.UTF_8);
+
+        ByteBuffer buffer = ByteBuffer.allocate(1 + Long.BYTES + 3 * Short.BYTES
+                + owner.length + track.length + client.length);
+        buffer.put((byte) entry.type().ordinal());
+        buffer.putLong(entry.at().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        putString(buffer, owner);
+        putString(buffer, track);
+        putString(buffer, client);
+        return buffer.array();
+    }
+
+    private static Entry decode(byte[] payload) {
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        Type type = Type.values()[buffer.get()];
+        LocalDateTime at = LocalDateTime.ofInstant(Instant.ofEpochMilli(buffer.getLong()), ZoneId.systemDefault());
+        String ownerId = getString(buffer);
+        String trackId = getString(buffer);
+        String clientId = getString(buffer);
+        return new Entry(type, at, ownerId, trackId, clientId.isEmpty() ? null : clientId);
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        if (bytes.length > 0xFFFF) throw new IllegalArgumentException("Journal field too long");
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
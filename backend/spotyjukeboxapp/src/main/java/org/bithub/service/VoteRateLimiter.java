@@ -0,0 +1,182 @@
+package org.bithub.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * VoteRateLimiter
+ * ------------------------------------------------------------------------
+ * Token-bucket limiter applied to incoming votes before they reach
+ * {@link VoteService}.
+ *
+ * Two buckets must grant a token for a vote to pass:
+ *   • one per caller: its server-issued clientId (HTTP, see {@link VoteClientIds})
+ *     or its STOMP session, never an identifier the caller made up itself
+ *   • one per owner session, capping the total vote rate of a jukebox
+ *
+ * Issuing clientIds is limited per remote address by a third, much larger
+ * bucket, so a whole venue behind one NAT can join while a single caller
+ * cannot mint fresh clientIds to escape its vote bucket.
+ *
+ * Each {@link TokenBucket} keeps its whole state in a single long and is
+ * updated with a CAS loop, so the hot path takes no locks. Buckets idle for
+ * longer than {@code jukebox.votes.rate-limit.idle-eviction-minutes} are
+ * evicted, and at most {@code jukebox.votes.rate-limit.max-buckets} are kept
+ * per scope; new keys are rejected while the table is full of active buckets.
+ *
+ * Metrics:
+ *   • jukebox.votes.ratelimit.rejected  (counter, tag scope)  rejected votes and clientId requests
+ *   • jukebox.votes.ratelimit.buckets   (gauge, tag scope)    tracked buckets
+ */
+@Slf4j
+@Component
+public class VoteRateLimiter {
+
+    private final long startNanos = System.nanoTime();
+
+    private final BucketTable clients;
+    private final BucketTable owners;
+    private final BucketTable issuers;
+
+    @Value("${jukebox.votes.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${jukebox.votes.rate-limit.max-buckets:10000}")
+    private int maxBuckets;
+
+    @Value("${jukebox.votes.rate-limit.idle-eviction-minutes:10}")
+    private long idleEvictionMinutes;
+
+    public VoteRateLimiter(@Value("${jukebox.votes.rate-limit.client.capacity:10}") int clientCapacity,
+                           @Value("${jukebox.votes.rate-limit.client.per-minute:30}") int clientPerMinute,
+                           @Value("${jukebox.votes.rate-limit.owner.capacity:300}") int ownerCapacity,
+                           @Value("${jukebox.votes.rate-limit.owner.per-minute:1200}") int ownerPerMinute,
+                           @Value("${jukebox.votes.rate-limit.client-id.capacity:200}") int issueCapacity,
+                           @Value("${jukebox.votes.rate-limit.client-id.per-minute:60}") int issuePerMinute,
+                           MeterRegistry meterRegistry) {
+        this.clients = new BucketTable("client", clientCapacity, clientPerMinute, meterRegistry);
+        this.owners = new BucketTable("owner", ownerCapacity, ownerPerMinute, meterRegistry);
+        this.issuers = new BucketTable("client-id", issueCapacity, issuePerMinute, meterRegistry);
+    }
+
+    /**
+     * Takes one token from the client's and the owner's bucket.
+     *
+     * @param ownerId   Spotify user/session ID
+     * @param clientKey identifier of the caller that the caller cannot choose (issued clientId, STOMP session)
+     * @return {@code 0} if the vote may proceed, otherwise the milliseconds until it may be retried
+     */
+    public long tryAcquire(String ownerId, String clientKey) {
+        if (!enabled) return 0;
+
+        long now = nowMillis();
+        long wait = clients.tryAcquire(clientKey, now);
+        if (wait > 0) return wait;
+
+        wait = owners.tryAcquire(ownerId, now);
+        // The vote does not happen: the caller keeps its token
+        if (wait > 0) clients.release(clientKey);
+        return wait;
+    }
+
+    /**
+     * Takes one token from the bucket of an address asking for a new clientId.
+     *
+     * @param address remote address of the caller
+     * @return {@code 0} if a clientId may be issued, otherwise the milliseconds until it may be retried
+     */
+    public long tryIssue(String address) {
+        if (!enabled) return 0;
+        return issuers.tryAcquire(address, nowMillis());
+    }
+
+    /**
+     * Drops buckets that have not been used within the idle period.
+     * An idle bucket has refilled completely, so dropping it changes nothing.
+     */
+    @Scheduled(fixedRate = 60_000)
+    public void evictIdleBuckets() {
+        long now = nowMillis();
+        int evicted = clients.evictIdle(now) + owners.evictIdle(now) + issuers.evictIdle(now);
+        if (evicted > 0) {
+            log.debug("🧹 Evicted {} idle rate-limit buckets.", evicted);
+        }
+    }
+
+    private long nowMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+
+    // --------------------------------------------------------------------
+    // Buckets
+    // --------------------------------------------------------------------
+
+    /**
+     * Buckets of one scope (clients, owners or clientId issuing).
+     */
+    private final class BucketTable {
+
+        private final String scope;
+        private final long capacityMilli;
+        private final double refillMilliPerMs;
+        private final ConcurrentMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+        private final Counter rejected;
+
+        BucketTable(String scope, int capacity, int perMinute, MeterRegistry meterRegistry) {
+            if (capacity < 1 || capacity > TokenBucket.MAX_CAPACITY || perMinute < 1) {
+                throw new IllegalArgumentException("Invalid " + scope + " rate limit: capacity="
+                        + capacity + ", per-minute=" + perMinute);
+            }
+            this.scope = scope;
+            this.capacityMilli = capacity * 1000L;
+            // milli-tokens per millisecond: perMinute * 1000 / 60_000
+            this.refillMilliPerMs = perMinute / 60.0;
+            this.rejected = Counter.builder("jukebox.votes.ratelimit.rejected")
+                    .tag("scope", scope)
+                    .description("Votes rejected by the rate limiter")
+                    .register(meterRegistry);
+            Gauge.builder("jukebox.votes.ratelimit.buckets", buckets, ConcurrentMap::size)
+                    .tag("scope", scope)
+                    .description("Rate-limit buckets currently tracked")
+                    .register(meterRegistry);
+        }
+
+        long tryAcquire(String key, long now) {
+            TokenBucket bucket = buckets.get(key);
+            if (bucket == null) {
+                if (buckets.size() >= maxBuckets && evictIdle(now) == 0 && buckets.size() >= maxBuckets) {
+                    rejected.increment();
+                    log.warn("⚠️ Rate-limit table for {} is full, rejecting new key.", scope);
+                    return TimeUnit.MINUTES.toMillis(1);
+                }
+                bucket = buckets.computeIfAbsent(key, k -> new TokenBucket(capacityMilli, now));
+            }
+
+            long wait = bucket.tryAcquire(now, capacityMilli, refillMilliPerMs);
+            if (wait > 0) rejected.increment();
+            return wait;
+        }
+
+        void release(String key) {
+            TokenBucket bucket = buckets.get(key);
+            if (bucket != null) bucket.release(capacityMilli);
+        }
+
+        int evictIdle(long now) {
+            long idleMillis = TimeUnit.MINUTES.toMillis(idleEvictionMinutes);
+            int before = buckets.size();
+            buckets.values().removeIf(b -> now - b.lastRefill() > idleMillis);
+            return Math.max(before - buckets.size(), 0);
+        }
+    }
+}
@@ -1,23 +1,29 @@
 package org.bithub.service;
 
+import jakarta.annotation.PostConstruct;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.bithub.model.PlayedSong;
+import org.bithub.model.TrackScore;
 import org.bithub.model.TrackVote;
 import org.bithub.model.Vote;
 import org.bithub.persistence.PlayedSongRepository;
 import org.bithub.persistence.VoteRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 
@@ -32,6 +38,12 @@ import java.util.stream.Collectors;
  *   • Resetting votes for songs that have finished playing
  *   • Tracking recently played songs (cooldown)
  *   • Returning ranked tracks based on current votes
+ *   • Scheduling vote broadcasts for every change (see {@link VoteBroadcaster})
+ *
+ * Vote counts are served from a {@link VoteTallyStore} (in-memory or Redis).
+ * Every vote, reset and played track is appended to the {@link VoteJournal},
+ * which is replayed on startup to rebuild process-local tallies and the
+ * cooldowns; without a journal the votes table is replayed instead.
  *
  * Backward Compatibility:
  *   All original public method names (addVote, resetVotesForPlayedTrack, etc.)
@@ -42,35 +54,123 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class VoteService {
 
+    private static final String ALREADY_VOTED = "You have already voted for this song.";
+
     private final VoteRepository voteRepository;
     private final PlayedSongRepository playedSongRepository;
     private final RedisTemplate<String, String> redisTemplate;
+    private final VoteTallyStore voteTallyStore;
+    private final VoteWriteBehindQueue voteWriteBehindQueue;
+    private final VoteBroadcaster voteBroadcaster;
+    private final VoteJournal voteJournal;
+    private final CooldownTracker cooldownTracker;
+
+    @Value("${jukebox.votes.decay.enabled:false}")
+    private boolean decayEnabled;
+
+    /**
+     * Per-session epochs, moved forward by every change that can reorder the playlist.
+     * They are drawn from one counter, so a session dropped from the map and seen again
+     * never repeats an epoch it had before.
+     */
+    private final ConcurrentMap<String, Long> voteEpochs = new ConcurrentHashMap<>();
+    private final AtomicLong lastVoteEpoch = new AtomicLong();
+
+    // --------------------------------------------------------------------
+    // ♻️ STARTUP REPLAY
+    // --------------------------------------------------------------------
+
+    /**
+     * Rebuilds the in-memory tallies from the votes of the last hour
+     * while the context starts, before the web server and the STOMP broker
+     * accept votes: a vote cast during the replay would otherwise be cleared
+     * from the tally, and as it went to the active journal segment it would
+     * not be replayed either. Shared stores (Redis) already hold the live
+     * tallies and are left untouched.
+     * <p>
+     * The {@link VoteJournal} is preferred when enabled, as it also restores
+     * resets and cooldowns; otherwise the votes table is replayed.
+     * </p>
+     */
+    @PostConstruct
+    public void replayVoteLog() {
+        if (voteJournal.isEnabled()) {
+            replayJournal();
+            return;
+        }
+        if (!voteTallyStore.requiresReplay()) return;
+        voteTallyStore.clear();
+
+        List<Vote> recent = voteRepository.findByCreatedAtAfterOrderByCreatedAtAsc(
+                LocalDateTime.now().minusHours(1));
+        recent.forEach(v -> voteTallyStore.record(v.getOwnerId(), v.getTrackId(), v.getClientId(), v.getCreatedAt()));
+
+        log.info("♻️ Replayed {} votes into the in-memory tally.", recent.size());
+    }
+
+    private void replayJournal() {
+        boolean replayVotes = voteTallyStore.requiresReplay();
+        if (replayVotes) voteTallyStore.clear();
+        LocalDateTime threshold = LocalDateTime.now().minusHours(1).truncatedTo(ChronoUnit.MINUTES);
+
+        int replayed = voteJournal.replay(entry -> {
+            switch (entry.type()) {
+                case VOTE -> {
+                    if (replayVotes && !entry.at().isBefore(threshold)) {
+                        voteTallyStore.record(entry.ownerId(), entry.trackId(), entry.clientId(), entry.at());
+                    }
+                }
+                case RESET -> {
+                    if (replayVotes) voteTallyStore.resetTrack(entry.ownerId(), entry.trackId());
+                }
+                case PLAYED -> cooldownTracker.played(entry.ownerId(), entry.trackId());
+            }
+        });
+
+        log.info("♻️ Replayed {} journal events (votes restored: {}).", replayed, replayVotes);
+    }
 
     // --------------------------------------------------------------------
     // 🧹 VOTE CLEANUP
     // --------------------------------------------------------------------
 
     /**
-     * Scheduled cleanup task — removes votes older than 1 hour.
+     * Scheduled task that slides the one-hour vote window.
      * <p>
-     * Currently runs every 1 minute for testing purposes.
-     * In production, adjust {@code fixedRate} to 300000 (5 minutes).
+     * Runs every minute, matching the per-minute buckets of the tally store.
+     * This is the only place votes expire: neither {@link #addVote} nor
+     * {@link #getActiveVotes} trigger any delete.
      * </p>
      */
-    @Scheduled(fixedRate = 60_000) // 1 minute (test) → change to 5 min in production
+    @Scheduled(fixedRate = 60_000)
     @Transactional
     public void cleanupOldVotesScheduled() {
         cleanupOldVotes();
     }
 
     /**
-     * Deletes all votes older than 1 hour from the repository.
-     * Executed both manually and via scheduler.
+     * Expires votes that left the one-hour window: compacts the votes log
+     * and drops the expired minute buckets from the tally store.
+     * The threshold is aligned to the minute so both agree on what expired.
      */
     @Transactional
     public void cleanupOldVotes() {
-        LocalDateTime threshold = LocalDateTime.now().minusHours(1);
+        LocalDateTime threshold = LocalDateTime.now().minusHours(1).truncatedTo(ChronoUnit.MINUTES);
+
+        // Delete the rows first so a client whose vote expires can vote again
+        // without hitting the unique (owner, track, client) constraint
         int deleted = voteRepository.deleteOldVotes(threshold);
+        voteTallyStore.expireBefore(threshold).forEach(ownerId -> {
+            if (voteTallyStore.counts(ownerId).isEmpty()) {
+                // Last votes of the session expired: send the zeros now and drop its state
+                voteEpochs.remove(ownerId);
+                voteBroadcaster.evict(ownerId);
+            } else {
+                bumpVoteEpoch(ownerId);
+                voteBroadcaster.markDirty(ownerId);
+            }
+        });
+
         if (deleted > 0) {
             log.info("🧹 Cleaned {} expired votes (before {}).", deleted, threshold);
         }
@@ -84,25 +184,20 @@ public class VoteService {
     /**
      * Adds a new vote for a track by a given client.
      * Prevents the same client from voting twice for the same song.
+     * <p>
+     * The vote is acknowledged as soon as the tally store has counted it;
+     * the store's voter index rejects duplicates in O(1). The row itself is
+     * persisted asynchronously by {@link VoteWriteBehindQueue}.
+     * </p>
      *
      * @param ownerId  Spotify user/session ID of the Jukebox owner
      * @param trackId  Spotify track ID
      * @param clientId unique client identifier (browser/device)
-     * @return persisted {@link Vote} object
+     * @return the accepted {@link Vote} (its ID is assigned once flushed)
      * @throws RuntimeException if this client already voted for the track
      */
-    @Transactional
     public Vote addVote(String ownerId, String trackId, String clientId) {
-        cleanupOldVotes();
-
-        boolean alreadyVoted = voteRepository.findByOwnerIdAndTrackId(ownerId, trackId)
-                .stream()
-                .anyMatch(v -> v.getClientId().equals(clientId));
-
-        if (alreadyVoted) {
-            throw new RuntimeException("You have already voted for this song.");
-        }
-
+        trackId = TrackIds.normalize(trackId);
         Vote vote = Vote.builder()
                 .ownerId(ownerId)
                 .trackId(trackId)
@@ -110,9 +205,16 @@ public class VoteService {
                 .createdAt(LocalDateTime.now())
                 .build();
 
-        Vote saved = voteRepository.save(vote);
+        if (!voteTallyStore.record(ownerId, trackId, clientId, vote.getCreatedAt())) {
+            throw new RuntimeException(ALREADY_VOTED);
+        }
+
+        voteJournal.appendVote(ownerId, trackId, clientId, vote.getCreatedAt());
+        voteWriteBehindQueue.enqueue(vote);
+        bumpVoteEpoch(ownerId);
+        voteBroadcaster.markDirty(ownerId);
         log.info("🗳️ Added new vote → owner={} track={} client={}", ownerId, trackId, clientId);
-        return saved;
+        return vote;
     }
 
 
@@ -129,8 +231,20 @@ public class VoteService {
      */
     @Transactional
     public void resetVotesForPlayedTrack(String ownerId, String trackId) {
+        trackId = TrackIds.normalize(trackId);
         log.info("Resetting votes for track: {}", trackId);
 
+        voteTallyStore.resetTrack(ownerId, trackId);
+        voteJournal.appendReset(ownerId, trackId);
+        bumpVoteEpoch(ownerId);
+        if (voteTallyStore.counts(ownerId).isEmpty()) {
+            // The reset took the session's last votes: send the zeros now and drop its stream
+            voteBroadcaster.evict(ownerId);
+        } else {
+            voteBroadcaster.markDirty(ownerId);
+        }
+        // Write queued votes first so none of them outlives the delete
+        voteWriteBehindQueue.flush();
         voteRepository.deleteVotesForTrack(ownerId, trackId);
         long remaining = voteRepository.findByOwnerIdAndTrackId(ownerId, trackId).size();
 
@@ -145,6 +259,8 @@ public class VoteService {
                 .trackId(trackId)
                 .playedAt(LocalDateTime.now())
                 .build());
+        cooldownTracker.played(ownerId, trackId, playedSongRepository::findLast3Songs);
+        voteJournal.appendPlayed(ownerId, trackId);
     }
 
 
@@ -159,27 +275,20 @@ public class VoteService {
      * @return map of trackId → voteCount
      */
     public Map<String, Long> getActiveVotes(String ownerId) {
-        cleanupOldVotes();
-
-        LocalDateTime cutoff = LocalDateTime.now().minusHours(1);
-        Map<String, Long> result = new HashMap<>();
-
-        for (Object[] row : voteRepository.findRecentVoteCounts(ownerId, cutoff)) {
-            result.put((String) row[0], (Long) row[1]);
-        }
-
-        return result;
+        return voteTallyStore.counts(ownerId);
     }
 
     /**
      * Retrieves the last 3 played tracks for cooldown management.
      * These tracks cannot be voted on again until they expire.
+     * Served from the {@link CooldownTracker}; the played-songs table is
+     * only read the first time a session is seen.
      *
      * @param ownerId Spotify user/session ID
-     * @return list of last 3 track IDs
+     * @return list of last 3 track IDs (latest first)
      */
     public List<String> getCooldownTracks(String ownerId) {
-        return playedSongRepository.findLast3Songs(ownerId);
+        return cooldownTracker.recent(ownerId, playedSongRepository::findLast3Songs);
     }
 
     /**
@@ -190,16 +299,57 @@ public class VoteService {
      * @return sorted list of {@link TrackVote} objects
      */
     public List<TrackVote> getRankedTracks(String ownerId) {
-        Map<String, Long> votes = getActiveVotes(ownerId);
+        return voteTallyStore.ranked(ownerId);
+    }
 
-        return votes.entrySet().stream()
-                .map(e -> new TrackVote(e.getKey(), e.getValue()))
-                .sorted((a, b) -> Long.compare(b.votes(), a.votes()))
+    /**
+     * Returns the tracks ranked by time-decayed score, so recent votes
+     * outweigh older ones instead of every vote counting fully for an hour.
+     * Without {@code jukebox.votes.decay.enabled} the score equals the raw count.
+     *
+     * @param ownerId Spotify user/session ID
+     * @return sorted list of {@link TrackScore} objects
+     */
+    public List<TrackScore> getDecayedScores(String ownerId) {
+        return voteTallyStore.decayed(ownerId);
+    }
+
+    /**
+     * Returns the ranking used to order the Jukebox playlist: by decayed
+     * score when decay is enabled, by raw count otherwise.
+     * Vote counts in the result are always the raw counts.
+     *
+     * @param ownerId Spotify user/session ID
+     * @return sorted list of {@link TrackVote} objects
+     */
+    public List<TrackVote> getPlaylistRanking(String ownerId) {
+        if (!decayEnabled) return getRankedTracks(ownerId);
+        return getDecayedScores(ownerId).stream()
+                .map(ts -> new TrackVote(ts.trackId(), ts.votes()))
                 .toList();
     }
 
+    /**
+     * Returns the session's vote epoch. It changes with every vote, reset,
+     * expiry and cooldown change of the session, so an unchanged epoch means
+     * the playlist ranking is unchanged too. (Decay does not reorder tracks
+     * between changes: all scores shrink by the same factor.)
+     * Only changes made on this node are seen.
+     *
+     * @param ownerId Spotify user/session ID
+     * @return the current epoch, {@code 0} for a session without votes or changes
+     */
+    public long getVoteEpoch(String ownerId) {
+        return voteEpochs.getOrDefault(ownerId, 0L);
+    }
+
+    private void bumpVoteEpoch(String ownerId) {
+        voteEpochs.put(ownerId, lastVoteEpoch.incrementAndGet());
+    }
+
     @Transactional
     public void addPlayedSong(String userId, String trackId) {
+        trackId = TrackIds.normalize(trackId);
         try {
             // DB’de aynı şarkı son 3 içinde varsa tekrar ekleme
             List<String> recent = getCooldownTracks(userId);
@@ -218,6 +368,9 @@ public class VoteService {
                 log.debug("🗑️ Removed oldest cooldown track {}", oldestTrackId);
             }
 
+            cooldownTracker.played(userId, trackId);
+            voteJournal.appendPlayed(userId, trackId);
+            bumpVoteEpoch(userId);
             log.debug("🎶 Added {} to cooldown for {}", trackId, userId);
         } catch (Exception e) {
             log.warn("⚠️ Failed to add played song {} for {}", trackId, userId, e);
@@ -0,0 +1,92 @@
+package org.bithub.service;
+
+import org.bithub.model.TrackScore;
+import org.bithub.model.TrackVote;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Storage for the live vote tallies of all Jukebox sessions.
+ * <p>
+ * The implementation is selected with {@code jukebox.votes.store}:
+ * {@code memory} (default, {@link InMemoryVoteTallyStore}) keeps tallies in
+ * the local JVM, {@code redis} ({@link RedisVoteTallyStore}) keeps them in
+ * Redis sorted sets shared by every node.
+ * </p>
+ */
+public interface VoteTallyStore {
+
+    /**
+     * Counts a single vote for a track, unless the client already voted for it.
+     *
+     * @param ownerId   Spotify user/session ID
+     * @param trackId   Spotify track ID
+     * @param clientId  unique client identifier (browser/device)
+     * @param createdAt when the vote was cast (used for expiry)
+     * @return {@code true} if the vote was counted, {@code false} for a duplicate
+     */
+    boolean record(String ownerId, String trackId, String clientId, LocalDateTime createdAt);
+
+    /**
+     * Returns the current vote counts for a session.
+     *
+     * @param ownerId Spotify user/session ID
+     * @return map of trackId → voteCount (only tracks with at least one vote)
+     */
+    Map<String, Long> counts(String ownerId);
+
+    /**
+     * Returns the tracks of a session sorted by vote count (descending).
+     * Implementations keep the ranking ordered as votes change, so this is
+     * an iteration rather than a sort.
+     *
+     * @param ownerId Spotify user/session ID
+     * @return ranked list of {@link TrackVote}
+     */
+    List<TrackVote> ranked(String ownerId);
+
+    /**
+     * Returns the tracks of a session sorted by time-decayed score (descending).
+     * Stores without decay support (or with decay disabled) rank by raw count
+     * and report the count as the score.
+     *
+     * @param ownerId Spotify user/session ID
+     * @return ranked list of {@link TrackScore}
+     */
+    default List<TrackScore> decayed(String ownerId) {
+        return ranked(ownerId).stream()
+                .map(tv -> new TrackScore(tv.trackId(), tv.votes(), tv.votes()))
+                .toList();
+    }
+
+    /**
+     * Drops all votes of a track, e.g. once it has been played.
+     *
+     * @param ownerId Spotify user/session ID
+     * @param trackId Spotify track ID
+     */
+    void resetTrack(String ownerId, String trackId);
+
+    /**
+     * Expires every vote created before the given threshold, across all sessions.
+     *
+     * @param threshold votes older than this are removed
+     * @return IDs of the sessions that lost at least one vote
+     */
+    Set<String> expireBefore(LocalDateTime threshold);
+
+    /**
+     * Removes all tallies (used before replaying the vote log).
+     */
+    void clear();
+
+    /**
+     * Whether the tallies are lost on restart and must be rebuilt from the vote log.
+     *
+     * @return {@code true} for process-local stores
+     */
+    boolean requiresReplay();
+}
@@ -0,0 +1,243 @@
+package org.bithub.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bithub.model.Vote;
+import org.bithub.persistence.VoteRepository;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * VoteWriteBehindQueue
+ * ------------------------------------------------------------------------
+ * Persists votes asynchronously in JDBC batches.
+ *
+ * Votes are acknowledged as soon as the tally store has counted them;
+ * the {@link Vote} rows are queued here and written by a flush that runs
+ * either when {@code jukebox.votes.write-behind.batch-size} votes are
+ * pending or every {@code jukebox.votes.write-behind.flush-interval-ms}.
+ *
+ * Batches are written in their own transactions, never in the caller's:
+ * a batch flushed from inside a transactional reset must neither roll the
+ * reset back nor hide its conflicts until the reset commits. A batch that
+ * fails is retried row by row: only rows violating the one-vote-per-client
+ * constraint ({@value #UNIQUE_VOTE_CONSTRAINT}) are dropped, a row failing
+ * another integrity check is retried once and then counted as dropped, and
+ * rows failing for any other reason are put back in front of the queue
+ * and retried by the next flush.
+ *
+ * The queue holds at most {@code jukebox.votes.write-behind.capacity} votes.
+ * When it is full, the voting thread flushes itself and then waits up to
+ * {@code jukebox.votes.write-behind.enqueue-timeout-ms} for room; only then
+ * is the vote given up (it stays counted, but is not persisted).
+ *
+ * Metrics:
+ *   • jukebox.votes.writebehind.queue   (gauge)    votes waiting to be written
+ *   • jukebox.votes.writebehind.flush   (timer)    latency of each batch write
+ *   • jukebox.votes.writebehind.dropped (counter)  acknowledged votes that could not be persisted
+ */
+@Slf4j
+@Component
+public class VoteWriteBehindQueue {
+
+    static final String UNIQUE_VOTE_CONSTRAINT = "ux_votes_owner_track_client";
+
+    private final VoteRepository voteRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Timer flushTimer;
+    private final Counter dropped;
+
+    private final BlockingDeque<Vote> pending;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ExecutorService flusher = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "vote-write-behind");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @Value("${jukebox.votes.write-behind.batch-size:200}")
+    private int batchSize;
+
+    @Value("${jukebox.votes.write-behind.enqueue-timeout-ms:1000}")
+    private long enqueueTimeoutMillis;
+
+    public VoteWriteBehindQueue(VoteRepository voteRepository,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry,
+                                @Value("${jukebox.votes.write-behind.capacity:10000}") int capacity) {
+        this.voteRepository = voteRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.pending = new LinkedBlockingDeque<>(capacity);
+        this.flushTimer = Timer.builder("jukebox.votes.writebehind.flush")
+                .description("Latency of write-behind vote batch flushes")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("jukebox.votes.writebehind.dropped")
+                .description("Acknowledged votes that could not be persisted")
+                .register(meterRegistry);
+        Gauge.builder("jukebox.votes.writebehind.queue", pending, BlockingQueue::size)
+                .description("Votes waiting to be persisted")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues a vote for persistence. Triggers an early flush once a full batch is pending;
+     * flushes on the calling thread when the queue is full.
+     *
+     * @param vote vote already counted by the tally store
+     */
+    public void enqueue(Vote vote) {
+        if (!pending.offer(vote)) {
+            flush();
+            try {
+                if (!pending.offer(vote, enqueueTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                    dropped.increment();
+                    log.error("❌ Write-behind queue full, vote not persisted → owner={} track={} client={}",
+                            vote.getOwnerId(), vote.getTrackId(), vote.getClientId());
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                dropped.increment();
+                return;
+            }
+        }
+        if (pending.size() >= batchSize && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(() -> {
+                flushRequested.set(false);
+                flush();
+            });
+        }
+    }
+
+    /**
+     * Time-based flush trigger.
+     */
+    @Scheduled(fixedDelayString = "${jukebox.votes.write-behind.flush-interval-ms:500}")
+    public void flushScheduled() {
+        flush();
+    }
+
+    /**
+     * Writes every pending vote, one batch transaction per {@code batchSize} votes.
+     * Synchronized so that callers needing a consistent log (e.g. vote reset)
+     * can rely on all previously queued votes being written on return, unless
+     * the database failed; the flush then stops and leaves the rest queued.
+     */
+    public synchronized void flush() {
+        List<Vote> batch = new ArrayList<>(batchSize);
+        while (pending.drainTo(batch, batchSize) > 0) {
+            List<Vote> toWrite = batch;
+            Supplier<Boolean> writeBatch = () -> write(toWrite);
+            if (!Boolean.TRUE.equals(flushTimer.record(writeBatch))) return;
+            batch = new ArrayList<>(batchSize);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        flusher.shutdown();
+    }
+
+    /**
+     * @return {@code false} if the batch was requeued after a failure
+     */
+    private boolean write(List<Vote> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> voteRepository.saveAll(batch));
+            log.debug("💾 Flushed {} votes.", batch.size());
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            // One conflicting row rejects the whole batch: retry row by row
+            log.warn("⚠️ Vote batch of {} rejected, retrying individually.", batch.size());
+            List<Vote> failed = new ArrayList<>();
+            batch.forEach(vote -> {
+                if (!writeSingle(vote)) failed.add(vote);
+            });
+            if (failed.isEmpty()) return true;
+            requeue(failed);
+            return false;
+        } catch (Exception e) {
+            log.error("❌ Failed to flush {} votes, requeued for the next flush.", batch.size(), e);
+            requeue(batch);
+            return false;
+        }
+    }
+
+    /**
+     * @return {@code false} if the row should be requeued
+     */
+    private boolean writeSingle(Vote vote) {
+        for (int attempt = 1; ; attempt++) {
+            vote.setId(null);
+            try {
+                transactionTemplate.executeWithoutResult(status -> voteRepository.save(vote));
+                return true;
+            } catch (DataIntegrityViolationException e) {
+                if (isDuplicateVote(e)) {
+                    log.warn("⚠️ Dropped duplicate vote → owner={} track={} client={}",
+                            vote.getOwnerId(), vote.getTrackId(), vote.getClientId());
+                    return true;
+                }
+                if (attempt < 2) continue;
+                dropped.increment();
+                log.error("❌ Vote violates a database constraint, not persisted → owner={} track={} client={}",
+                        vote.getOwnerId(), vote.getTrackId(), vote.getClientId(), e);
+                return true;
+            } catch (Exception e) {
+                log.error("❌ Failed to write vote → owner={} track={} client={}",
+                        vote.getOwnerId(), vote.getTrackId(), vote.getClientId(), e);
+                return false;
+            }
+        }
+    }
+
+    /**
+     * @return whether the violation is the one-vote-per-client unique constraint
+     */
+    static boolean isDuplicateVote(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            String name = t instanceof ConstraintViolationException cve ? cve.getConstraintName() : t.getMessage();
+            // H2 reports the index name in upper case, PostgreSQL as declared
+            if (name != null && name.toLowerCase(Locale.ROOT).contains(UNIQUE_VOTE_CONSTRAINT)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Puts votes back in front of the queue, in their original order.
+     * Votes that no longer fit are counted as dropped.
+     */
+    private void requeue(List<Vote> votes) {
+        for (int i = votes.size() - 1; i >= 0; i--) {
+            Vote vote = votes.get(i);
+            vote.setId(null);
+            if (!pending.offerFirst(vote)) {
+                dropped.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package org.bithub.service;
+
+import org.bithub.model.TrackScore;
+import org.bithub.model.TrackVote;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Checks the counters, duplicate-vote index, sliding window, ranking and
+ * decayed scores of {@link InMemoryVoteTallyStore}.
+ */
+class InMemoryVoteTallyStoreTest {
+
+    private final InMemoryVoteTallyStore store = new InMemoryVoteTallyStore(false, 15);
+
+    @Test
+    void countsEachClientOncePerTrack() {
+        LocalDateTime now = LocalDateTime.now();
+
+        assertThat(store.record("owner", "a", "c1", now)).isTrue();
+        assertThat(store.record("owner", "a", "c1", now)).isFalse();
+        assertThat(store.record("owner", "spotify:track:a", "c1", now)).isFalse();
+        assertThat(store.record("owner", "a", "c2", now)).isTrue();
+        assertThat(store.record("owner", "b", "c1", now)).isTrue();
+        assertThat(store.record("other", "a", "c1", now)).isTrue();
+
+        assertThat(store.counts("owner")).isEqualTo(Map.of("a", 2L, "b", 1L));
+        assertThat(store.counts("other")).isEqualTo(Map.of("a", 1L));
+    }
+
+    @Test
+    void resetLetsClientsVoteForTheTrackAgain() {
+        LocalDateTime now = LocalDateTime.now();
+        store.record("owner", "a", "c1", now);
+        store.record("owner", "b", "c1", now);
+
+        store.resetTrack("owner", "a");
+
+        assertThat(store.ranked("owner")).containsExactly(new TrackVote("b", 1L));
+        assertThat(store.record("owner", "a", "c1", now)).isTrue();
+    }
+
+    @Test
+    void expiryDropsWholeMinutesBeforeTheThreshold() {
+        LocalDateTime threshold = LocalDateTime.of(2026, 1, 1, 11, 0, 30);
+        store.record("owner", "a", "c1", threshold.minusSeconds(31));  // 10:59:59, a minute before
+        store.record("owner", "a", "c2", threshold.minusSeconds(30));  // 11:00:00
+        store.record("owner", "b", "c1", threshold.minusSeconds(10));  // same minute as the threshold
+        store.record("owner", "b", "c2", threshold.plusMinutes(30));
+
+        assertThat(store.expireBefore(threshold)).containsExactly("owner");
+
+        // Votes leave the window a whole minute at a time
+        assertThat(store.counts("owner")).isEqualTo(Map.of("a", 1L, "b", 2L));
+        assertThat(store.expireBefore(threshold)).isEmpty();
+    }
+
+    @Test
+    void expiredVotersMayVoteAgain() {
+        LocalDateTime now = LocalDateTime.of(2026, 1, 1, 12, 0);
+        store.record("owner", "a", "c1", now.minusMinutes(90));
+
+        store.expireBefore(now.minusHours(1));
+
+        assertThat(store.ranked("owner")).isEmpty();
+        assertThat(store.record("owner", "a", "c1", now)).isTrue();
+        assertThat(store.counts("owner")).isEqualTo(Map.of("a", 1L));
+    }
+
+    @Test
+    void expiringVotesOfAResetTrackLeavesNewVotesAlone() {
+        LocalDateTime now = LocalDateTime.of(2026, 1, 1, 12, 0);
+        store.record("owner", "a", "c1", now.minusMinutes(90));
+        store.resetTrack("owner", "a");
+        store.record("owner", "a", "c1", now);
+
+        store.expireBefore(now.minusHours(1));
+
+        assertThat(store.counts("owner")).isEqualTo(Map.of("a", 1L));
+    }
+
+    @Test
+    void emptySessionsAreReleased() {
+        LocalDateTime now = LocalDateTime.of(2026, 1, 1, 12, 0);
+        store.record("idle", "a", "c1", now.minusMinutes(90));
+        store.record("owner", "a", "c1", now);
+
+        assertThat(store.expireBefore(now.minusHours(1))).containsExactly("idle");
+
+        assertThat(store.counts("idle")).isEmpty();
+        assertThat(store.counts("owner")).isEqualTo(Map.of("a", 1L));
+        assertThat(store.record("idle", "a", "c1", now)).isTrue();
+    }
+
+    @Test
+    void rankingOrdersByVotesThenByWhoGotThereFirst() {
+        LocalDateTime now = LocalDateTime.now();
+        store.record("owner", "a", "c1", now);
+        store.record("owner", "b", "c1", now);
+        store.record("owner", "b", "c2", now);
+        store.record("owner", "c", "c1", now);
+        store.record("owner", "a", "c2", now);
+
+        // a and b both have two votes; b reached two first
+        assertThat(store.ranked("owner"))
+                .containsExactly(new TrackVote("b", 2L), new TrackVote("a", 2L), new TrackVote("c", 1L));
+    }
+
+    @Test
+    void rankingFollowsExpiryAndReset() {
+        LocalDateTime now = LocalDateTime.of(2026, 1, 1, 12, 0);
+        store.record("owner", "a", "c1", now.minusMinutes(90));
+        store.record("owner", "a", "c2", now.minusMinutes(90));
+        store.record("owner", "a", "c3", now);
+        store.record("owner", "b", "c1", now);
+        store.record("owner", "b", "c2", now);
+        store.record("owner", "c", "c1", now);
+
+        store.expireBefore(now.minusHours(1));
+        // a dropped to one vote after c had one: c goes first
+        assertThat(store.ranked("owner"))
+                .containsExactly(new TrackVote("b", 2L), new TrackVote("c", 1L), new TrackVote("a", 1L));
+
+        store.resetTrack("owner", "b");
+        assertThat(store.ranked("owner")).containsExactly(new TrackVote("c", 1L), new TrackVote("a", 1L));
+    }
+
+    @Test
+    void decayedScoreHalvesEveryHalfLife() {
+        InMemoryVoteTallyStore decaying = new InMemoryVoteTallyStore(true, 15);
+        LocalDateTime now = LocalDateTime.now();
+        decaying.record("owner", "a", "c1", now.minusMinutes(15));
+        decaying.record("owner", "a", "c2", now.minusMinutes(30));
+        decaying.record("owner", "b", "c1", now);
+
+        List<TrackScore> scores = decaying.decayed("owner");
+
+        assertThat(scores).extracting(TrackScore::trackId).containsExactly("b", "a");
+        assertThat(scores.get(0).score()).isCloseTo(1.0, within(1e-3));
+        assertThat(scores.get(1).score()).isCloseTo(0.5 + 0.25, within(1e-3));
+        assertThat(scores.get(1).votes()).isEqualTo(2L);
+        // The raw ranking is unaffected
+        assertThat(decaying.ranked("owner").get(0)).isEqualTo(new TrackVote("a", 2L));
+    }
+
+    @Test
+    void expiredVotesLeaveTheDecayedScore() {
+        InMemoryVoteTallyStore decaying = new InMemoryVoteTallyStore(true, 15);
+        LocalDateTime now = LocalDateTime.now();
+        decaying.record("owner", "a", "c1", now.minusMinutes(90));
+        decaying.record("owner", "a", "c2", now);
+        decaying.record("owner", "b", "c1", now.minusMinutes(90));
+
+        decaying.expireBefore(now.minusHours(1));
+
+        List<TrackScore> scores = decaying.decayed("owner");
+        assertThat(scores).hasSize(1);
+        assertThat(scores.get(0).trackId()).isEqualTo("a");
+        assertThat(scores.get(0).score()).isCloseTo(1.0, within(1e-3));
+    }
+
+    @Test
+    void withoutDecayTheScoreIsTheCount() {
+        LocalDateTime now = LocalDateTime.now();
+        store.record("owner", "a", "c1", now.minusMinutes(50));
+        store.record("owner", "a", "c2", now.minusMinutes(50));
+        store.record("owner", "b", "c1", now);
+
+        assertThat(store.decayed("owner"))
+                .containsExactly(new TrackScore("a", 2L, 2.0), new TrackScore("b", 1L, 1.0));
+    }
+
+    @Test
+    void rankingSeesEveryTrackExactlyOnceWhileVotesArrive() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        int tracks = 20;
+        int writers = 3;
+        ExecutorService pool = Executors.newFixedThreadPool(writers);
+        List<Future<?>> voting = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            int writer = w;
+            voting.add(pool.submit(() -> {
+                for (int client = 0; client < 3_000; client++) {
+                    store.record("owner", "t" + (client % tracks), writer + "-" + client, now);
+                }
+            }));
+        }
+
+        while (!voting.stream().allMatch(Future::isDone)) {
+            List<TrackVote> ranked = store.ranked("owner");
+            assertThat(ranked).extracting(TrackVote::trackId).doesNotHaveDuplicates();
+            assertThat(ranked).isSortedAccordingTo((x, y) -> Long.compare(y.votes(), x.votes()));
+        }
+        for (Future<?> writer : voting) writer.get();
+        pool.shutdown();
+        assertThat(pool.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(store.ranked("owner")).hasSize(tracks).allMatch(vote -> vote.votes() == 3L * 3_000 / tracks);
+    }
+}
@@ -0,0 +1,168 @@
+package org.bithub.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Checks how long {@link NowPlayingCache} keeps an answer, and what it
+ * serves in the meantime. TTLs are set to a few hundred milliseconds.
+ */
+class NowPlayingCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private NowPlayingCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new NowPlayingCache(meterRegistry);
+        ReflectionTestUtils.setField(cache, "maxTtlMillis", 10_000L);
+        ReflectionTestUtils.setField(cache, "idleTtlMillis", 10_000L);
+        ReflectionTestUtils.setField(cache, "endGraceMillis", 0L);
+    }
+
+    @Test
+    void playingTrackIsCachedUntilItShouldEnd() throws InterruptedException {
+        Supplier<Map<String, Object>> loader = loader(playing(800, 1_000));
+
+        cache.get("owner", loader);
+        cache.get("owner", loader);
+        assertThat(loads).hasValue(1);
+
+        Thread.sleep(300);
+        cache.get("owner", loader);
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void longTracksAreRecheckedAfterTheMaxTtl() throws InterruptedException {
+        ReflectionTestUtils.setField(cache, "maxTtlMillis", 200L);
+        Supplier<Map<String, Object>> loader = loader(playing(0, 600_000));
+
+        cache.get("owner", loader);
+        cache.get("owner", loader);
+        assertThat(loads).hasValue(1);
+
+        Thread.sleep(300);
+        cache.get("owner", loader);
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void idlePlaybackUsesTheIdleTtl() throws InterruptedException {
+        ReflectionTestUtils.setField(cache, "idleTtlMillis", 200L);
+        Supplier<Map<String, Object>> loader = loader(Map.of("is_playing", false));
+
+        cache.get("owner", loader);
+        cache.get("owner", loader);
+        assertThat(loads).hasValue(1);
+
+        Thread.sleep(300);
+        cache.get("owner", loader);
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void servedProgressAdvancesWithoutChangingTheCachedAnswer() throws InterruptedException {
+        Map<String, Object> answer = playing(1_000, 100_000);
+        cache.get("owner", loader(answer));
+        Thread.sleep(50);
+
+        Map<String, Object> served = cache.get("owner", loader(answer));
+
+        assertThat((Long) served.get("progress_ms")).isBetween(1_050L, 100_000L);
+        assertThat(answer.get("progress_ms")).isEqualTo(1_000);
+    }
+
+    @Test
+    void servedProgressStopsAtTheEndOfTheTrack() throws InterruptedException {
+        cache.get("owner", loader(playing(99_990, 100_000)));
+        Thread.sleep(50);
+
+        assertThat(cache.lastKnown("owner").get("progress_ms")).isEqualTo(100_000L);
+    }
+
+    @Test
+    void concurrentMissesShareOneCall() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<Map<String, Object>> slow = () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            await(release);
+            return playing(0, 100_000);
+        };
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        List<Future<Map<String, Object>>> callers = new ArrayList<>();
+        callers.add(pool.submit(() -> cache.get("owner", slow)));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int i = 0; i < 3; i++) callers.add(pool.submit(() -> cache.get("owner", slow)));
+        Thread.sleep(50);
+        release.countDown();
+
+        for (Future<Map<String, Object>> caller : callers) {
+            assertThat(caller.get(5, TimeUnit.SECONDS)).containsEntry("is_playing", true);
+        }
+        pool.shutdown();
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void failuresAreNotCached() {
+        assertThatThrownBy(() -> cache.get("owner", () -> {
+            throw new SpotifyUnavailableException("now-playing", "circuit open");
+        })).isInstanceOf(SpotifyUnavailableException.class);
+
+        cache.get("owner", loader(playing(0, 100_000)));
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void invalidateForcesAReloadButKeepsNothingStale() {
+        Supplier<Map<String, Object>> loader = loader(playing(0, 100_000));
+        cache.get("owner", loader);
+
+        cache.invalidate("owner");
+
+        assertThat(cache.lastKnown("owner")).isNull();
+        cache.get("owner", loader);
+        assertThat(loads).hasValue(2);
+    }
+
+    private Supplier<Map<String, Object>> loader(Map<String, Object> answer) {
+        return () -> {
+            loads.incrementAndGet();
+            return answer;
+        };
+    }
+
+    private static Map<String, Object> playing(int progressMs, int durationMs) {
+        return Map.of("is_playing", true, "progress_ms", progressMs, "item", Map.of("duration_ms", durationMs));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package org.bithub.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks when {@link PlaylistOrderFingerprints} lets a playlist update be
+ * skipped, and that different orders get different fingerprints.
+ */
+class PlaylistOrderFingerprintsTest {
+
+    private static final List<String> ORDER = List.of("spotify:track:a", "spotify:track:b", "spotify:track:c");
+
+    private PlaylistOrderFingerprints fingerprints;
+
+    @BeforeEach
+    void setUp() {
+        fingerprints = new PlaylistOrderFingerprints(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(fingerprints, "fullCycleIntervalMillis", 60_000L);
+    }
+
+    @Test
+    void sameStateIsUnchanged() {
+        fingerprints.record("owner", 3, "t1", "s1", ORDER, true);
+
+        assertThat(fingerprints.unchanged("owner", 3, "t1", "s1")).isTrue();
+        assertThat(fingerprints.unchanged("owner", 4, "t1", "s1")).isFalse();
+        assertThat(fingerprints.unchanged("owner", 3, "t2", "s1")).isFalse();
+        assertThat(fingerprints.unchanged("owner", 3, "t1", "s2")).isFalse();
+        assertThat(fingerprints.unchanged("owner", 3, "t1", null)).isFalse();
+    }
+
+    @Test
+    void onlyTheRecordedOrderIsWritten() {
+        fingerprints.record("owner", 3, "t1", "s1", ORDER, true);
+
+        assertThat(fingerprints.isWritten("owner", "s1", List.copyOf(ORDER))).isTrue();
+        assertThat(fingerprints.isWritten("owner", "s1", List.of("spotify:track:b", "spotify:track:a", "spotify:track:c"))).isFalse();
+        assertThat(fingerprints.isWritten("owner", "s2", ORDER)).isFalse();
+    }
+
+    @Test
+    void recordWithoutASnapshotForgetsTheSession() {
+        fingerprints.record("owner", 3, "t1", "s1", ORDER, true);
+
+        fingerprints.record("owner", 3, "t1", null, ORDER, true);
+
+        assertThat(fingerprints.isWritten("owner", "s1", ORDER)).isFalse();
+    }
+
+    @Test
+    void fingerprintTellsApartOrdersWithCollidingStringHashes() {
+        // "Aa" and "BB" have the same String.hashCode()
+        assertThat("Aa".hashCode()).isEqualTo("BB".hashCode());
+
+        assertThat(PlaylistOrderFingerprints.fingerprint(List.of("Aa", "BB")))
+                .isNotEqualTo(PlaylistOrderFingerprints.fingerprint(List.of("BB", "Aa")));
+        assertThat(PlaylistOrderFingerprints.fingerprint(List.of("AaBB", "x")))
+                .isNotEqualTo(PlaylistOrderFingerprints.fingerprint(List.of("BBAa", "x")));
+    }
+
+    @Test
+    void fingerprintTellsApartUrisSplitDifferently() {
+        assertThat(PlaylistOrderFingerprints.fingerprint(List.of("ab", "c")))
+                .isNotEqualTo(PlaylistOrderFingerprints.fingerprint(List.of("a", "bc")));
+        assertThat(PlaylistOrderFingerprints.fingerprint(List.of("a")))
+                .isNotEqualTo(PlaylistOrderFingerprints.fingerprint(List.of("a", "")));
+    }
+}
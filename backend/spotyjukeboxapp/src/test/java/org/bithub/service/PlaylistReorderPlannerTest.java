@@ -0,0 +1,105 @@
+package org.bithub.service;
+
+import org.bithub.service.PlaylistReorderPlanner.Move;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Applies the moves planned by {@link PlaylistReorderPlanner} the way
+ * Spotify does and checks that they produce the target order.
+ */
+class PlaylistReorderPlannerTest {
+
+    @Test
+    void randomPermutationsReachTheTarget() {
+        Random random = new Random(42);
+        for (int i = 0; i < 5_000; i++) {
+            int n = random.nextInt(40);
+            List<String> current = new ArrayList<>();
+            for (int p = 0; p < n; p++) current.add("spotify:track:" + p);
+            List<String> target = new ArrayList<>(current);
+            Collections.shuffle(target, random);
+
+            assertThat(applyPlan(current, target)).isEqualTo(target);
+        }
+    }
+
+    @Test
+    void repeatedUrisReachTheTarget() {
+        Random random = new Random(7);
+        for (int i = 0; i < 5_000; i++) {
+            int n = random.nextInt(30);
+            List<String> current = new ArrayList<>();
+            for (int p = 0; p < n; p++) current.add("spotify:track:" + random.nextInt(n / 2 + 1));
+            List<String> target = new ArrayList<>(current);
+            Collections.shuffle(target, random);
+
+            assertThat(applyPlan(current, target)).isEqualTo(target);
+        }
+    }
+
+    @Test
+    void identicalOrdersNeedNoMoves() {
+        List<String> order = List.of("a", "b", "c", "d");
+
+        assertThat(PlaylistReorderPlanner.plan(order, order)).isEmpty();
+    }
+
+    @Test
+    void singleMovedTrackIsOneMove() {
+        List<String> current = new ArrayList<>();
+        for (int p = 0; p < 5_000; p++) current.add("t" + p);
+        List<String> target = new ArrayList<>(current);
+        target.add(0, target.remove(4_000));
+
+        assertThat(PlaylistReorderPlanner.plan(current, target)).containsExactly(new Move(4_000, 1, 0));
+    }
+
+    @Test
+    void adjacentTracksMoveAsOneRange() {
+        List<String> current = List.of("a", "b", "c", "d", "e");
+        List<String> target = List.of("d", "e", "a", "b", "c");
+
+        List<Move> moves = PlaylistReorderPlanner.plan(current, target);
+
+        assertThat(moves).hasSize(1);
+        assertThat(applyPlan(current, target)).isEqualTo(target);
+    }
+
+    @Test
+    void nonPermutationReturnsNull() {
+        assertThat(PlaylistReorderPlanner.plan(List.of("a", "b"), List.of("a", "c"))).isNull();
+        assertThat(PlaylistReorderPlanner.plan(List.of("a", "b"), List.of("a"))).isNull();
+        assertThat(PlaylistReorderPlanner.plan(List.of("a", "a", "b"), List.of("a", "b", "b"))).isNull();
+    }
+
+    /**
+     * Plans the reorder and replays it on a copy of {@code current}.
+     */
+    private static List<String> applyPlan(List<String> current, List<String> target) {
+        List<Move> moves = PlaylistReorderPlanner.plan(current, target);
+        assertThat(moves).isNotNull();
+
+        List<String> playlist = new ArrayList<>(current);
+        for (Move move : moves) {
+            int start = move.rangeStart();
+            int end = start + move.rangeLength();
+            assertThat(move.rangeLength()).isPositive();
+            assertThat(move.insertBefore()).isBetween(0, playlist.size());
+            // Moving a range in front of itself or directly behind it would be a no-op
+            assertThat(move.insertBefore() < start || move.insertBefore() > end).isTrue();
+
+            List<String> range = new ArrayList<>(playlist.subList(start, end));
+            playlist.subList(start, end).clear();
+            int insertAt = move.insertBefore() > start ? move.insertBefore() - range.size() : move.insertBefore();
+            playlist.addAll(insertAt, range);
+        }
+        return playlist;
+    }
+}
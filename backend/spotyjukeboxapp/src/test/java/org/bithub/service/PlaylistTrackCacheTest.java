@@ -0,0 +1,119 @@
+package org.bithub.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bithub.model.SpotifyTrack;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks when {@link PlaylistTrackCache} serves, revalidates or drops a
+ * playlist's tracks, and how our own writes are applied to it.
+ */
+class PlaylistTrackCacheTest {
+
+    private static final SpotifyTrack A = track("a");
+    private static final SpotifyTrack B = track("b");
+    private static final SpotifyTrack C = track("c");
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private PlaylistTrackCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new PlaylistTrackCache(meterRegistry);
+        ReflectionTestUtils.setField(cache, "checkIntervalMillis", 200L);
+    }
+
+    @Test
+    void tracksAreServedWithoutACheckWithinTheInterval() throws InterruptedException {
+        cache.put("p", "s1", List.of(A, B));
+
+        assertThat(cache.fresh("p")).containsExactly(A, B);
+
+        Thread.sleep(300);
+        assertThat(cache.fresh("p")).isNull();
+        assertThat(cache.lastKnown("p")).containsExactly(A, B);
+    }
+
+    @Test
+    void unchangedSnapshotRevalidatesTheTracks() throws InterruptedException {
+        cache.put("p", "s1", List.of(A, B));
+        Thread.sleep(300);
+
+        assertThat(cache.validate("p", "s1")).containsExactly(A, B);
+
+        assertThat(cache.fresh("p")).containsExactly(A, B);
+        assertThat(result("revalidated")).isEqualTo(1);
+    }
+
+    @Test
+    void newSnapshotIsAMiss() {
+        cache.put("p", "s1", List.of(A, B));
+
+        assertThat(cache.validate("p", "s2")).isNull();
+        assertThat(cache.validate("p", null)).isNull();
+        assertThat(cache.validate("other", "s1")).isNull();
+        assertThat(result("miss")).isEqualTo(3);
+    }
+
+    @Test
+    void tracksWithoutASnapshotAreNotCached() {
+        cache.put("p", null, List.of(A));
+
+        assertThat(cache.lastKnown("p")).isNull();
+    }
+
+    @Test
+    void ourRewriteReordersTheCachedTracks() {
+        SpotifyTrack secondA = track("a");
+        cache.put("p", "s1", List.of(A, B, secondA, C));
+
+        cache.written("p", "s2", List.of("spotify:track:c", "spotify:track:a", "spotify:track:b", "spotify:track:a"));
+
+        assertThat(cache.snapshotId("p")).isEqualTo("s2");
+        assertThat(cache.fresh("p")).containsExactly(C, A, B, secondA);
+    }
+
+    @Test
+    void rewriteWithAnUnknownTrackDropsTheEntry() {
+        cache.put("p", "s1", List.of(A, B));
+
+        cache.written("p", "s2", List.of("spotify:track:b", "spotify:track:x"));
+
+        assertThat(cache.lastKnown("p")).isNull();
+        assertThat(cache.snapshotId("p")).isNull();
+    }
+
+    @Test
+    void rewriteWithoutASnapshotDropsTheEntry() {
+        cache.put("p", "s1", List.of(A, B));
+
+        cache.written("p", null, List.of("spotify:track:b", "spotify:track:a"));
+
+        assertThat(cache.lastKnown("p")).isNull();
+    }
+
+    @Test
+    void invalidateDropsTheEntry() {
+        cache.put("p", "s1", List.of(A));
+
+        cache.invalidate("p");
+
+        assertThat(cache.fresh("p")).isNull();
+        assertThat(cache.snapshotId("p")).isNull();
+    }
+
+    private double result(String result) {
+        return meterRegistry.get("jukebox.playlist.cache").tag("result", result).counter().count();
+    }
+
+    private static SpotifyTrack track(String id) {
+        return new SpotifyTrack(id, "spotify:track:" + id, "Track " + id, 180_000, List.of(), null);
+    }
+}
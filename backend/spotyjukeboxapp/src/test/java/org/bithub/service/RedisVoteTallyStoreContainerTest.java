@@ -0,0 +1,25 @@
+package org.bithub.service;
+
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+/**
+ * Runs the {@link RedisVoteTallyStoreTest} tests against a real Redis in a
+ * container, whose Lua interpreter the in-process server only imitates.
+ * Skipped when no Docker daemon is available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class RedisVoteTallyStoreContainerTest extends RedisVoteTallyStoreTest {
+
+    @Container
+    private static final GenericContainer<?> REDIS =
+            new GenericContainer<>(DockerImageName.parse("redis:7-alpine")).withExposedPorts(6379);
+
+    @Override
+    protected RedisStandaloneConfiguration redis() {
+        return new RedisStandaloneConfiguration(REDIS.getHost(), REDIS.getMappedPort(6379));
+    }
+}
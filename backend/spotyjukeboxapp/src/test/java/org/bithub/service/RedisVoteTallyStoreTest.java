@@ -0,0 +1,191 @@
+package org.bithub.service;
+
+import com.github.fppt.jedismock.RedisServer;
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.cluster.SlotHash;
+import io.lettuce.core.protocol.ProtocolVersion;
+import org.bithub.model.TrackVote;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs {@link RedisVoteTallyStore} and its Lua scripts against an in-process
+ * Redis (jedis-mock), so they are checked on every build.
+ * {@link RedisVoteTallyStoreContainerTest} runs the same tests on a real Redis.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class RedisVoteTallyStoreTest {
+
+    private RedisServer server;
+    private LettuceConnectionFactory connectionFactory;
+    protected StringRedisTemplate redisTemplate;
+
+    private RedisVoteTallyStore store;
+
+    /**
+     * @return address of the Redis to run against
+     */
+    protected RedisStandaloneConfiguration redis() throws IOException {
+        server = RedisServer.newRedisServer();
+        server.start();
+        return new RedisStandaloneConfiguration(server.getHost(), server.getBindPort());
+    }
+
+    @BeforeAll
+    void connect() throws IOException {
+        LettuceClientConfiguration clientConfiguration = LettuceClientConfiguration.builder()
+                .clientOptions(ClientOptions.builder().protocolVersion(ProtocolVersion.RESP2).build())
+                .build();
+        connectionFactory = new LettuceConnectionFactory(redis(), clientConfiguration);
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    void disconnect() throws IOException {
+        connectionFactory.destroy();
+        if (server != null) server.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate.execute(connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        }, true);
+        store = new RedisVoteTallyStore(redisTemplate);
+    }
+
+    @Test
+    void countsEachClientOncePerTrack() {
+        LocalDateTime now = LocalDateTime.now();
+
+        assertThat(store.record("owner", "a", "c1", now)).isTrue();
+        assertThat(store.record("owner", "a", "c1", now)).isFalse();
+        assertThat(store.record("owner", "a", "c2", now)).isTrue();
+        assertThat(store.record("owner", "b", "c1", now)).isTrue();
+
+        assertThat(store.ranked("owner")).containsExactly(new TrackVote("a", 2L), new TrackVote("b", 1L));
+        assertThat(store.counts("other")).isEmpty();
+        assertThat(redisTemplate.opsForSet().members("jukebox:votes:sessions")).containsExactly("owner");
+    }
+
+    @Test
+    void concurrentVotesAreAllCounted() throws InterruptedException {
+        LocalDateTime now = LocalDateTime.now();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 200; i++) {
+            String clientId = "c" + (i % 100);
+            pool.execute(() -> store.record("owner", "a", clientId, now));
+        }
+        pool.shutdown();
+        assertThat(pool.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(store.counts("owner")).isEqualTo(Map.of("a", 100L));
+    }
+
+    @Test
+    void resetDropsTallyTimelineAndVotersOfTheTrackOnly() {
+        LocalDateTime now = LocalDateTime.now();
+        store.record("owner", "a", "c1", now);
+        store.record("owner", "a", "c2", now);
+        store.record("owner", "ab", "c1", now);
+        store.record("owner", "b", "c1", now);
+
+        store.resetTrack("owner", "a");
+
+        assertThat(store.ranked("owner")).containsExactlyInAnyOrder(new TrackVote("ab", 1L), new TrackVote("b", 1L));
+        assertThat(redisTemplate.opsForZSet().range("jukebox:votes:{owner}:timeline", 0, -1))
+                .containsExactlyInAnyOrder("ab|c1", "b|c1");
+        assertThat(redisTemplate.opsForZSet().range("jukebox:votes:{owner}:voters", 0, -1))
+                .containsExactly("ab|c1", "b|c1");
+        // The client can vote for the reset track again
+        assertThat(store.record("owner", "a", "c1", now)).isTrue();
+    }
+
+    @Test
+    void resetOfATrackWithManyVotersRemovesThemAll() {
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 1_200; i++) {
+            store.record("owner", "a", "c" + i, now);
+        }
+        store.record("owner", "b", "c1", now);
+
+        store.resetTrack("owner", "a");
+
+        assertThat(store.ranked("owner")).containsExactly(new TrackVote("b", 1L));
+        assertThat(redisTemplate.opsForZSet().zCard("jukebox:votes:{owner}:timeline")).isEqualTo(1L);
+        assertThat(redisTemplate.opsForZSet().zCard("jukebox:votes:{owner}:voters")).isEqualTo(1L);
+    }
+
+    @Test
+    void expiresOldVotesAndForgetsEmptySessions() {
+        LocalDateTime now = LocalDateTime.now();
+        store.record("owner", "a", "c1", now.minusMinutes(90));
+        store.record("owner", "a", "c2", now.minusMinutes(5));
+        store.record("owner", "b", "c1", now.minusMinutes(90));
+        store.record("idle", "x", "c1", now.minusMinutes(90));
+
+        Set<String> changed = store.expireBefore(now.minusHours(1));
+
+        assertThat(changed).containsExactlyInAnyOrder("owner", "idle");
+        assertThat(store.ranked("owner")).containsExactly(new TrackVote("a", 1L));
+        assertThat(store.ranked("idle")).isEmpty();
+        assertThat(redisTemplate.opsForZSet().range("jukebox:votes:{owner}:voters", 0, -1)).containsExactly("a|c2");
+        assertThat(redisTemplate.opsForSet().members("jukebox:votes:sessions")).containsExactly("owner");
+        assertThat(store.expireBefore(now.minusHours(1))).isEmpty();
+        // An expired voter may vote again
+        assertThat(store.record("owner", "b", "c1", now)).isTrue();
+    }
+
+    @Test
+    void expiryCutoffIsExclusive() {
+        LocalDateTime threshold = LocalDateTime.now().minusHours(1);
+        store.record("owner", "a", "c1", threshold);
+        store.record("owner", "a", "c2", threshold.minusNanos(1_000_000));
+
+        store.expireBefore(threshold);
+
+        // Like InMemoryVoteTallyStore and deleteOldVotes: a vote cast at the threshold stays
+        assertThat(store.ranked("owner")).containsExactly(new TrackVote("a", 1L));
+    }
+
+    @Test
+    void keysOfASessionShareOneClusterSlot() {
+        store.record("owner", "a", "c1", LocalDateTime.now());
+
+        int slot = SlotHash.getSlot("jukebox:votes:{owner}");
+        assertThat(redisTemplate.keys("jukebox:votes:{owner}*"))
+                .hasSize(3)
+                .allSatisfy(key -> assertThat(SlotHash.getSlot(key)).isEqualTo(slot));
+    }
+
+    @Test
+    void clearRemovesEverySession() {
+        store.record("owner", "a", "c1", LocalDateTime.now());
+
+        store.clear();
+
+        assertThat(store.ranked("owner")).isEqualTo(List.of());
+        assertThat(redisTemplate.keys("jukebox:votes:*")).isEmpty();
+    }
+}
@@ -0,0 +1,192 @@
+package org.bithub.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Drives the state machine of {@link SpotifyCircuitBreakers}: when a circuit
+ * opens, which calls may close it again, and what a trial call may not leave behind.
+ */
+class SpotifyCircuitBreakersTest {
+
+    private static final String ENDPOINT = "now-playing";
+
+    private SpotifyCircuitBreakers breakers;
+
+    @BeforeEach
+    void setUp() {
+        breakers = new SpotifyCircuitBreakers(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(breakers, "failureThreshold", 3);
+        ReflectionTestUtils.setField(breakers, "openDurationSeconds", 30L);
+        ReflectionTestUtils.setField(breakers, "maxConcurrentCalls", 10);
+        ReflectionTestUtils.setField(breakers, "bulkheadWaitMillis", 100L);
+    }
+
+    @Test
+    void opensAfterConsecutiveFailures() {
+        fail(2);
+        assertThat(state()).isEqualTo("CLOSED");
+
+        fail(1);
+
+        assertThat(state()).isEqualTo("OPEN");
+        assertThatThrownBy(() -> breakers.execute(ENDPOINT, () -> "ok")).isInstanceOf(SpotifyUnavailableException.class);
+        assertThatThrownBy(() -> breakers.checkOpen(ENDPOINT)).isInstanceOf(SpotifyUnavailableException.class);
+    }
+
+    @Test
+    void clientErrorsResetTheFailureCount() {
+        fail(2);
+        assertThatThrownBy(() -> breakers.execute(ENDPOINT, () -> {
+            throw HttpClientErrorException.create(HttpStatus.NOT_FOUND, "", HttpHeaders.EMPTY, null, null);
+        })).isInstanceOf(HttpClientErrorException.NotFound.class);
+
+        fail(2);
+
+        assertThat(state()).isEqualTo("CLOSED");
+    }
+
+    @Test
+    void rateLimitedCallsAreNeutralWhileClosed() {
+        fail(2);
+        for (int i = 0; i < 5; i++) rateLimited();
+
+        assertThat(state()).isEqualTo("CLOSED");
+        fail(1);
+        assertThat(state()).isEqualTo("OPEN");
+    }
+
+    @Test
+    void successfulTrialClosesTheCircuit() {
+        openNow();
+
+        assertThat(breakers.execute(ENDPOINT, () -> "ok")).isEqualTo("ok");
+
+        assertThat(state()).isEqualTo("CLOSED");
+    }
+
+    @Test
+    void failedTrialOpensTheCircuitAgain() {
+        openNow();
+
+        assertThatThrownBy(() -> breakers.execute(ENDPOINT, () -> {
+            ReflectionTestUtils.setField(breakers, "openDurationSeconds", 30L);
+            throw new HttpServerErrorException(HttpStatus.BAD_GATEWAY);
+        })).isInstanceOf(HttpServerErrorException.class);
+
+        assertThat(state()).isEqualTo("OPEN");
+    }
+
+    @Test
+    void rateLimitedTrialKeepsTheCircuitOpen() {
+        openNow();
+
+        assertThatThrownBy(() -> breakers.execute(ENDPOINT, () -> {
+            ReflectionTestUtils.setField(breakers, "openDurationSeconds", 30L);
+            throw HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "", HttpHeaders.EMPTY, null, null);
+        })).isInstanceOf(HttpClientErrorException.TooManyRequests.class);
+
+        assertThat(state()).isEqualTo("OPEN");
+    }
+
+    @Test
+    void errorInTrialDoesNotWedgeTheBreaker() {
+        openNow();
+
+        assertThatThrownBy(() -> breakers.execute(ENDPOINT, () -> {
+            throw new StackOverflowError();
+        })).isInstanceOf(StackOverflowError.class);
+
+        // The next caller gets to make the trial call
+        assertThat(state()).isEqualTo("HALF_OPEN");
+        assertThat(breakers.execute(ENDPOINT, () -> "ok")).isEqualTo("ok");
+        assertThat(state()).isEqualTo("CLOSED");
+    }
+
+    @Test
+    void onlyOneTrialCallAtATime() throws Exception {
+        openNow();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> trial = CompletableFuture.supplyAsync(() -> breakers.execute(ENDPOINT, () -> {
+            started.countDown();
+            await(release);
+            return "trial";
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> breakers.execute(ENDPOINT, () -> "ok")).isInstanceOf(SpotifyUnavailableException.class);
+
+        release.countDown();
+        assertThat(trial.get(5, TimeUnit.SECONDS)).isEqualTo("trial");
+        assertThat(state()).isEqualTo("CLOSED");
+    }
+
+    @Test
+    void slowSuccessFromBeforeTheCircuitOpenedDoesNotCloseIt() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> slow = CompletableFuture.supplyAsync(() -> breakers.execute(ENDPOINT, () -> {
+            started.countDown();
+            await(release);
+            return "late";
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        fail(3);
+        release.countDown();
+
+        assertThat(slow.get(5, TimeUnit.SECONDS)).isEqualTo("late");
+        assertThat(state()).isEqualTo("OPEN");
+    }
+
+    /**
+     * Opens the circuit with no open duration, so the next call is the trial.
+     */
+    private void openNow() {
+        ReflectionTestUtils.setField(breakers, "openDurationSeconds", 0L);
+        fail(3);
+    }
+
+    private void fail(int times) {
+        for (int i = 0; i < times; i++) {
+            assertThatThrownBy(() -> breakers.execute(ENDPOINT, () -> {
+                throw new HttpServerErrorException(HttpStatus.BAD_GATEWAY);
+            })).isInstanceOf(HttpServerErrorException.class);
+        }
+    }
+
+    private void rateLimited() {
+        assertThatThrownBy(() -> breakers.execute(ENDPOINT, () -> {
+            throw HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "", HttpHeaders.EMPTY, null, null);
+        })).isInstanceOf(HttpClientErrorException.TooManyRequests.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private String state() {
+        Map<String, Object> details = (Map<String, Object>) breakers.health().getDetails().get(ENDPOINT);
+        return String.valueOf(details.get("state"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
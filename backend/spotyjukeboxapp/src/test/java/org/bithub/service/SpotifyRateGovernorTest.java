@@ -0,0 +1,158 @@
+package org.bithub.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bithub.service.SpotifyRateGovernor.Priority;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Checks the app and user budgets of {@link SpotifyRateGovernor}, the
+ * reservation left to interactive calls and the handling of {@code Retry-After}.
+ */
+class SpotifyRateGovernorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void eachUserHasItsOwnBudget() {
+        SpotifyRateGovernor governor = governor(100, 2, 0);
+        governor.acquire("u1", Priority.INTERACTIVE);
+        governor.acquire("u1", Priority.INTERACTIVE);
+
+        assertThatThrownBy(() -> governor.acquire("u1", Priority.INTERACTIVE))
+                .isInstanceOfSatisfying(SpotifyThrottledException.class,
+                        e -> assertThat(e.getRetryAfterMillis()).isPositive());
+        assertThatCode(() -> governor.acquire("u2", Priority.INTERACTIVE)).doesNotThrowAnyException();
+        assertThat(deferred(Priority.INTERACTIVE)).isEqualTo(1);
+    }
+
+    @Test
+    void backgroundCallsLeaveTheReserveToInteractiveOnes() {
+        SpotifyRateGovernor governor = governor(5, 100, 3);
+
+        governor.acquire("u1", Priority.BACKGROUND);
+        governor.acquire("u2", Priority.BACKGROUND);
+        assertThatThrownBy(() -> governor.acquire("u3", Priority.BACKGROUND))
+                .isInstanceOf(SpotifyThrottledException.class);
+
+        for (int i = 0; i < 3; i++) governor.acquire("u" + i, Priority.INTERACTIVE);
+        assertThatThrownBy(() -> governor.acquire("u4", Priority.INTERACTIVE))
+                .isInstanceOf(SpotifyThrottledException.class);
+        assertThat(deferred(Priority.BACKGROUND)).isEqualTo(1);
+    }
+
+    @Test
+    void userKeepsItsTokenWhenTheAppBudgetRefuses() {
+        SpotifyRateGovernor governor = governor(3, 1, 2);
+        governor.acquire("u1", Priority.BACKGROUND);
+
+        assertThatThrownBy(() -> governor.acquire("u2", Priority.BACKGROUND))
+                .isInstanceOf(SpotifyThrottledException.class);
+
+        // u2's only token was given back when the app bucket refused
+        assertThatCode(() -> governor.acquire("u2", Priority.INTERACTIVE)).doesNotThrowAnyException();
+    }
+
+    @Test
+    void interactiveCallsWaitForATokenWithinTheirBudget() {
+        // Capacity 1, refilled every 100 ms
+        SpotifyRateGovernor governor = new SpotifyRateGovernor(100, 6_000, 1, 600, 0, meterRegistry);
+        configure(governor, 3_000);
+        governor.acquire("u1", Priority.INTERACTIVE);
+
+        long start = System.nanoTime();
+        governor.acquire("u1", Priority.INTERACTIVE);
+
+        assertThat((System.nanoTime() - start) / 1_000_000).isBetween(50L, 2_000L);
+        assertThatThrownBy(() -> governor.acquire("u1", Priority.BACKGROUND))
+                .isInstanceOf(SpotifyThrottledException.class);
+    }
+
+    @Test
+    void retryAfterBlocksEveryCall() {
+        SpotifyRateGovernor governor = governor(100, 100, 0);
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "5");
+
+        assertThat(governor.onRateLimited(headers)).isEqualTo(5_000);
+
+        // Longer than the interactive wait: fails at once instead of sleeping
+        assertThatThrownBy(() -> governor.acquire("other", Priority.INTERACTIVE))
+                .isInstanceOfSatisfying(SpotifyThrottledException.class,
+                        e -> assertThat(e.getRetryAfterMillis()).isBetween(4_000L, 5_000L));
+        assertThat(meterRegistry.get("spotify.ratelimit.throttled").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void missingOrUnusableRetryAfterFallsBackToTheDefault() {
+        SpotifyRateGovernor governor = governor(100, 100, 0);
+        HttpHeaders unparseable = new HttpHeaders();
+        unparseable.set(HttpHeaders.RETRY_AFTER, "Wed, 21 Oct 2026 07:28:00 GMT");
+        HttpHeaders zero = new HttpHeaders();
+        zero.set(HttpHeaders.RETRY_AFTER, "0");
+
+        assertThat(governor.onRateLimited(null)).isEqualTo(2_000);
+        assertThat(governor.onRateLimited(unparseable)).isEqualTo(2_000);
+        assertThat(governor.onRateLimited(zero)).isEqualTo(1_000);
+    }
+
+    @Test
+    void refilledUserBucketsAreEvicted() throws InterruptedException {
+        // A user bucket refills within a millisecond
+        SpotifyRateGovernor governor = new SpotifyRateGovernor(100, 6_000, 1, 60_000, 0, meterRegistry);
+        configure(governor, 3_000);
+        governor.acquire("u1", Priority.INTERACTIVE);
+        Thread.sleep(10);
+
+        governor.evictIdleBuckets();
+
+        assertThat((Map<?, ?>) ReflectionTestUtils.getField(governor, "users")).isEmpty();
+    }
+
+    @Test
+    void disabledGovernorLetsEverythingThrough() {
+        SpotifyRateGovernor governor = governor(1, 1, 0);
+        ReflectionTestUtils.setField(governor, "enabled", false);
+
+        assertThatCode(() -> {
+            for (int i = 0; i < 10; i++) governor.acquire("u1", Priority.BACKGROUND);
+        }).doesNotThrowAnyException();
+    }
+
+    @Test
+    void rejectsBudgetsTheBucketsCannotHold() {
+        assertThatThrownBy(() -> new SpotifyRateGovernor(TokenBucket.MAX_CAPACITY + 1, 180, 20, 60, 15, meterRegistry))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new SpotifyRateGovernor(60, 180, 20, 60, 60, meterRegistry))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * A governor whose buckets refill by one token per minute, so they do
+     * not refill noticeably while a test runs, and that never waits.
+     */
+    private SpotifyRateGovernor governor(int appCapacity, int userCapacity, int backgroundReserve) {
+        SpotifyRateGovernor governor = new SpotifyRateGovernor(appCapacity, 1, userCapacity, 1, backgroundReserve, meterRegistry);
+        configure(governor, 0);
+        return governor;
+    }
+
+    private static void configure(SpotifyRateGovernor governor, long maxWaitMillis) {
+        ReflectionTestUtils.setField(governor, "enabled", true);
+        ReflectionTestUtils.setField(governor, "maxWaitMillis", maxWaitMillis);
+        ReflectionTestUtils.setField(governor, "defaultRetryAfterSeconds", 2L);
+    }
+
+    private double deferred(Priority priority) {
+        return meterRegistry.get("spotify.ratelimit.deferred")
+                .tag("priority", priority.name().toLowerCase())
+                .counter().count();
+    }
+}
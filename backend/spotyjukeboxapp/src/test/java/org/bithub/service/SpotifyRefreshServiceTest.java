@@ -0,0 +1,145 @@
+package org.bithub.service;
+
+import org.bithub.model.UserInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks that {@link SpotifyRefreshService} refreshes a user's token once,
+ * however many callers need it at the same time.
+ */
+class SpotifyRefreshServiceTest {
+
+    private final UserService userService = mock(UserService.class);
+    private final RestTemplate restTemplate = mock(RestTemplate.class);
+    private final AtomicInteger issued = new AtomicInteger();
+
+    private SpotifyRefreshService refreshService;
+
+    @BeforeEach
+    void setUp() {
+        refreshService = new SpotifyRefreshService(userService, restTemplate);
+        ReflectionTestUtils.setField(refreshService, "clientId", "client");
+        ReflectionTestUtils.setField(refreshService, "clientSecret", "secret");
+        ReflectionTestUtils.setField(refreshService, "refreshLeadSeconds", 300L);
+        ReflectionTestUtils.setField(refreshService, "refreshJitterSeconds", 0L);
+    }
+
+    @Test
+    void concurrentRefreshesShareOneRequest() throws Exception {
+        CountDownLatch requested = new CountDownLatch(1);
+        CountDownLatch answer = new CountDownLatch(1);
+        when(restTemplate.postForEntity(anyString(), any(HttpEntity.class), eq(Map.class))).thenAnswer(invocation -> {
+            requested.countDown();
+            answer.await(5, TimeUnit.SECONDS);
+            return tokenResponse();
+        });
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<UserInfo>> callers = new ArrayList<>();
+        callers.add(pool.submit(() -> refreshService.refreshAccessToken(user("old", LocalDateTime.now()))));
+        assertThat(requested.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int i = 0; i < 7; i++) {
+            callers.add(pool.submit(() -> refreshService.refreshAccessToken(user("old", LocalDateTime.now()))));
+        }
+        Thread.sleep(100);
+        answer.countDown();
+
+        for (Future<UserInfo> caller : callers) {
+            assertThat(caller.get(5, TimeUnit.SECONDS).getAccessToken()).isEqualTo("new-1");
+        }
+        pool.shutdown();
+        verify(restTemplate, times(1)).postForEntity(anyString(), any(HttpEntity.class), eq(Map.class));
+        verify(userService, times(1)).save(any());
+    }
+
+    @Test
+    void callerWithAReplacedTokenGetsTheNewOneWithoutARequest() {
+        when(restTemplate.postForEntity(anyString(), any(HttpEntity.class), eq(Map.class))).thenAnswer(i -> tokenResponse());
+        refreshService.refreshAccessToken(user("old", LocalDateTime.now()));
+
+        UserInfo stale = user("old", LocalDateTime.now().minusMinutes(1));
+        assertThat(refreshService.refreshAccessToken(stale).getAccessToken()).isEqualTo("new-1");
+        assertThat(refreshService.getValidAccessToken(user("old", LocalDateTime.now().minusMinutes(1)))).isEqualTo("new-1");
+
+        verify(restTemplate, times(1)).postForEntity(anyString(), any(HttpEntity.class), eq(Map.class));
+    }
+
+    @Test
+    void failedRefreshIsNotCachedAndCanBeRetried() {
+        when(restTemplate.postForEntity(anyString(), any(HttpEntity.class), eq(Map.class)))
+                .thenThrow(new IllegalStateException("token endpoint down"))
+                .thenAnswer(i -> tokenResponse());
+
+        assertThat(refreshService.refreshAccessToken(user("old", LocalDateTime.now()))).isNull();
+        assertThat(refreshService.refreshAccessToken(user("old", LocalDateTime.now())).getAccessToken()).isEqualTo("new-1");
+    }
+
+    @Test
+    void validTokensAreServedWithoutRefreshing() {
+        assertThat(refreshService.getValidAccessToken(user("current", LocalDateTime.now()))).isEqualTo("current");
+
+        verify(restTemplate, never()).postForEntity(anyString(), any(HttpEntity.class), eq(Map.class));
+    }
+
+    @Test
+    void expiringTokensAreRefreshedBeforeUse() {
+        when(restTemplate.postForEntity(anyString(), any(HttpEntity.class), eq(Map.class))).thenAnswer(i -> tokenResponse());
+
+        assertThat(refreshService.getValidAccessToken(user("old", LocalDateTime.now().minusMinutes(61)))).isEqualTo("new-1");
+    }
+
+    @Test
+    void schedulerRefreshesOnlyTokensWithinTheLead() {
+        when(restTemplate.postForEntity(anyString(), any(HttpEntity.class), eq(Map.class))).thenAnswer(i -> tokenResponse());
+        UserInfo expiring = user("old", LocalDateTime.now().minusMinutes(56));
+        UserInfo fresh = user("fresh", LocalDateTime.now());
+        fresh.setSpotifyUserId("other");
+        when(userService.findAll()).thenReturn(List.of(expiring, fresh));
+
+        refreshService.refreshExpiringTokens();
+
+        assertThat(expiring.getAccessToken()).isEqualTo("new-1");
+        assertThat(fresh.getAccessToken()).isEqualTo("fresh");
+        verify(restTemplate, times(1)).postForEntity(anyString(), any(HttpEntity.class), eq(Map.class));
+    }
+
+    private ResponseEntity<Map<String, Object>> tokenResponse() {
+        return ResponseEntity.ok(Map.of("access_token", "new-" + issued.incrementAndGet(), "expires_in", 3600));
+    }
+
+    private static UserInfo user(String accessToken, LocalDateTime updatedAt) {
+        return UserInfo.builder()
+                .spotifyUserId("user")
+                .accessToken(accessToken)
+                .refreshToken("refresh")
+                .expiresIn(3600L)
+                .updatedAt(updatedAt)
+                .build();
+    }
+}
@@ -0,0 +1,118 @@
+package org.bithub.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Drives a {@link TokenBucket} with explicit timestamps.
+ */
+class TokenBucketTest {
+
+    /** One token per second. */
+    private static final double REFILL = 1.0;
+
+    @Test
+    void startsFullAndTellsHowLongToWaitOnceEmpty() {
+        TokenBucket bucket = new TokenBucket(3_000, 0);
+
+        for (int i = 0; i < 3; i++) assertThat(bucket.tryAcquire(0, 3_000, REFILL)).isZero();
+
+        assertThat(bucket.tryAcquire(0, 3_000, REFILL)).isEqualTo(1_000);
+        assertThat(bucket.tryAcquire(400, 3_000, REFILL)).isEqualTo(600);
+    }
+
+    @Test
+    void refillsUpToItsCapacity() {
+        TokenBucket bucket = new TokenBucket(3_000, 0);
+        for (int i = 0; i < 3; i++) bucket.tryAcquire(0, 3_000, REFILL);
+
+        assertThat(bucket.tryAcquire(2_000, 3_000, REFILL)).isZero();
+        assertThat(bucket.tryAcquire(2_000, 3_000, REFILL)).isZero();
+        assertThat(bucket.tryAcquire(2_000, 3_000, REFILL)).isPositive();
+
+        // Idle for much longer than a refill takes: still only three tokens
+        for (int i = 0; i < 3; i++) assertThat(bucket.tryAcquire(60_000, 3_000, REFILL)).isZero();
+        assertThat(bucket.tryAcquire(60_000, 3_000, REFILL)).isPositive();
+    }
+
+    @Test
+    void slowRefillIsNotLostToRounding() {
+        // A third of a milli-token per millisecond: 20 tokens per minute
+        double refill = 1.0 / 3;
+        TokenBucket bucket = new TokenBucket(1_000, 0);
+        bucket.tryAcquire(0, 1_000, refill);
+
+        int taken = 0;
+        for (long now = 1; now <= 60_000; now++) {
+            if (bucket.tryAcquire(now, 1_000, refill) == 0) taken++;
+        }
+
+        assertThat(taken).isEqualTo(20);
+    }
+
+    @Test
+    void reserveIsLeftToOtherCallers() {
+        TokenBucket bucket = new TokenBucket(5_000, 0);
+
+        int taken = 0;
+        while (bucket.tryAcquire(0, 5_000, REFILL, 2_000) == 0) taken++;
+
+        assertThat(taken).isEqualTo(3);
+        assertThat(bucket.tryAcquire(0, 5_000, REFILL)).isZero();
+        assertThat(bucket.tryAcquire(0, 5_000, REFILL)).isZero();
+        assertThat(bucket.tryAcquire(0, 5_000, REFILL)).isPositive();
+    }
+
+    @Test
+    void releaseGivesATokenBackUpToCapacity() {
+        TokenBucket bucket = new TokenBucket(2_000, 0);
+        bucket.tryAcquire(0, 2_000, REFILL);
+        bucket.tryAcquire(0, 2_000, REFILL);
+
+        bucket.release(2_000);
+        bucket.release(2_000);
+        bucket.release(2_000);
+
+        assertThat(bucket.tryAcquire(0, 2_000, REFILL)).isZero();
+        assertThat(bucket.tryAcquire(0, 2_000, REFILL)).isZero();
+        assertThat(bucket.tryAcquire(0, 2_000, REFILL)).isPositive();
+    }
+
+    @Test
+    void capacityIsLimitedByTheTokenField() {
+        long max = TokenBucket.MAX_CAPACITY * TokenBucket.ONE_TOKEN;
+        TokenBucket bucket = new TokenBucket(max, 0);
+
+        int taken = 0;
+        while (bucket.tryAcquire(0, max, REFILL) == 0) taken++;
+
+        assertThat(taken).isEqualTo(TokenBucket.MAX_CAPACITY);
+        assertThatThrownBy(() -> new TokenBucket(max + TokenBucket.ONE_TOKEN, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void concurrentCallersNeverTakeMoreThanTheCapacity() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(1_000_000, 0);
+        AtomicInteger taken = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            pool.execute(() -> {
+                for (int i = 0; i < 200; i++) {
+                    if (bucket.tryAcquire(0, 1_000_000, REFILL) == 0) taken.incrementAndGet();
+                }
+            });
+        }
+        pool.shutdown();
+        assertThat(pool.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(taken).hasValue(1_000);
+    }
+}
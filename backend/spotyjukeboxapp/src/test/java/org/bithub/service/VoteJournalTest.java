@@ -0,0 +1,178 @@
+package org.bithub.service;
+
+import org.bithub.service.VoteJournal.Entry;
+import org.bithub.service.VoteJournal.Type;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Writes {@link VoteJournal} segments to a temporary directory and replays
+ * them the way the next run would.
+ */
+class VoteJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private final List<VoteJournal> opened = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        opened.forEach(VoteJournal::close);
+    }
+
+    @Test
+    void replaysEventsOfPreviousRunsInOrder() {
+        LocalDateTime at = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        VoteJournal first = open();
+        first.appendVote("owner", "a", "c1", at);
+        first.appendReset("owner", "a");
+        first.appendPlayed("owner", "a");
+        first.close();
+
+        VoteJournal second = open();
+        second.appendVote("owner", "b", "c1", at);
+
+        List<Entry> replayed = replay(second);
+        assertThat(replayed).extracting(Entry::type).containsExactly(Type.VOTE, Type.RESET, Type.PLAYED);
+        assertThat(replayed.get(0)).isEqualTo(new Entry(Type.VOTE, at, "owner", "a", "c1"));
+        assertThat(replayed.get(1).clientId()).isNull();
+    }
+
+    @Test
+    void fullSegmentsRollOverAndReplayInOrder() {
+        VoteJournal first = open();
+        String clientId = "c".repeat(1_000);
+        for (int i = 0; i < 2_500; i++) {
+            first.appendVote("owner", "t" + i, clientId, LocalDateTime.now());
+        }
+        first.close();
+
+        assertThat(segments()).hasSizeGreaterThanOrEqualTo(3);
+        List<Entry> replayed = replay(open());
+        assertThat(replayed).hasSize(2_500);
+        assertThat(replayed).extracting(Entry::trackId).startsWith("t0", "t1").endsWith("t2498", "t2499");
+    }
+
+    @Test
+    void corruptRecordStopsTheReplayOfItsSegment() throws IOException {
+        VoteJournal first = open();
+        for (String client : List.of("c1", "c2", "c3")) {
+            first.appendVote("owner", "a", client, LocalDateTime.now());
+        }
+        first.close();
+
+        // Flip a byte in the payload of the second record
+        int recordBytes = 8 + payloadBytes("owner", "a", "c1");
+        try (RandomAccessFile file = new RandomAccessFile(segments().get(0).toFile(), "rw")) {
+            file.seek(recordBytes + 8 + 3);
+            int value = file.read();
+            file.seek(recordBytes + 8 + 3);
+            file.write(value ^ 0xFF);
+        }
+
+        assertThat(replay(open())).extracting(Entry::clientId).containsExactly("c1");
+    }
+
+    @Test
+    void tornRecordStopsTheReplayOfItsSegment() throws IOException {
+        VoteJournal first = open();
+        first.appendVote("owner", "a", "c1", LocalDateTime.now());
+        first.appendVote("owner", "a", "c2", LocalDateTime.now());
+        first.close();
+
+        // A length running past the end of the segment, as left by a crash mid-write
+        int recordBytes = 8 + payloadBytes("owner", "a", "c1");
+        try (RandomAccessFile file = new RandomAccessFile(segments().get(0).toFile(), "rw")) {
+            file.seek(recordBytes);
+            file.writeInt(Integer.MAX_VALUE);
+        }
+
+        assertThat(replay(open())).extracting(Entry::clientId).containsExactly("c1");
+    }
+
+    @Test
+    void oversizedEventsAreSkipped() {
+        VoteJournal first = open();
+        first.appendVote("owner", "a", "c".repeat(70_000), LocalDateTime.now());
+        first.appendVote("owner", "a", "c2", LocalDateTime.now());
+        first.close();
+
+        assertThat(replay(open())).extracting(Entry::clientId).containsExactly("c2");
+    }
+
+    @Test
+    void newSegmentsAreNamedPastExistingOnes() throws IOException {
+        long future = System.currentTimeMillis() + 3_600_000;
+        Path existing = Files.createFile(directory.resolve(segmentName(future)));
+
+        open();
+
+        assertThat(segments()).hasSize(2).first().isEqualTo(existing);
+        assertThat(segments().get(1).getFileName().toString()).isEqualTo(segmentName(future + 1));
+    }
+
+    @Test
+    void segmentsAreDeletedOnceTheirSuccessorIsOlderThanTheRetention() throws IOException {
+        long now = System.currentTimeMillis();
+        Path expired = Files.createFile(directory.resolve(segmentName(now - 48 * 3_600_000L)));
+        Path kept = Files.createFile(directory.resolve(segmentName(now - 30 * 3_600_000L)));
+        VoteJournal journal = open();
+
+        journal.deleteExpiredSegments();
+
+        // The second segment may hold events until the active one was started
+        assertThat(segments()).doesNotContain(expired).contains(kept).hasSize(2);
+    }
+
+    private VoteJournal open() {
+        VoteJournal journal = new VoteJournal();
+        ReflectionTestUtils.setField(journal, "enabled", true);
+        ReflectionTestUtils.setField(journal, "directory", directory);
+        ReflectionTestUtils.setField(journal, "segmentSizeMb", 1);
+        ReflectionTestUtils.setField(journal, "retentionHours", 24);
+        journal.open();
+        opened.add(journal);
+        return journal;
+    }
+
+    private static List<Entry> replay(VoteJournal journal) {
+        List<Entry> entries = new ArrayList<>();
+        int count = journal.replay(entries::add);
+        assertThat(count).isEqualTo(entries.size());
+        return entries;
+    }
+
+    private List<Path> segments() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String segmentName(long millis) {
+        return String.format("journal-%020d.seg", millis);
+    }
+
+    /** Payload size of a vote: type, timestamp and three length-prefixed strings. */
+    private static int payloadBytes(String ownerId, String trackId, String clientId) {
+        return 1 + Long.BYTES + 3 * Short.BYTES + ownerId.getBytes(StandardCharsets.UTF_8).length
+                + trackId.getBytes(StandardCharsets.UTF_8).length + clientId.getBytes(StandardCharsets.UTF_8).length;
+    }
+}
@@ -0,0 +1,110 @@
+package org.bithub.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Checks the client and owner scopes of {@link VoteRateLimiter} and the
+ * bounds of its bucket tables.
+ */
+class VoteRateLimiterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void eachClientHasItsOwnBucket() {
+        VoteRateLimiter limiter = limiter(3, 100, 10_000);
+
+        for (int i = 0; i < 3; i++) assertThat(limiter.tryAcquire("owner", "c1")).isZero();
+
+        assertThat(limiter.tryAcquire("owner", "c1")).isPositive();
+        assertThat(limiter.tryAcquire("owner", "c2")).isZero();
+        assertThat(rejected("client")).isEqualTo(1);
+    }
+
+    @Test
+    void ownerBucketCapsTheSessionWithoutChargingTheClient() {
+        VoteRateLimiter limiter = limiter(1, 2, 10_000);
+        assertThat(limiter.tryAcquire("owner", "c1")).isZero();
+        assertThat(limiter.tryAcquire("owner", "c2")).isZero();
+
+        assertThat(limiter.tryAcquire("owner", "c3")).isPositive();
+
+        // c3 kept its only token for another session
+        assertThat(limiter.tryAcquire("other", "c3")).isZero();
+        assertThat(rejected("owner")).isEqualTo(1);
+    }
+
+    @Test
+    void fullTableRejectsNewKeysButServesKnownOnes() {
+        VoteRateLimiter limiter = limiter(10, 100, 2);
+        limiter.tryAcquire("owner", "c1");
+        limiter.tryAcquire("owner", "c2");
+
+        assertThat(limiter.tryAcquire("owner", "c3")).isEqualTo(60_000);
+        assertThat(limiter.tryAcquire("owner", "c1")).isZero();
+    }
+
+    @Test
+    void idleBucketsAreEvicted() throws InterruptedException {
+        VoteRateLimiter limiter = limiter(10, 100, 1);
+        ReflectionTestUtils.setField(limiter, "idleEvictionMinutes", 0L);
+        limiter.tryAcquire("owner", "c1");
+        Thread.sleep(5);
+
+        // A full table first evicts idle buckets to make room
+        assertThat(limiter.tryAcquire("owner2", "c2")).isZero();
+
+        Thread.sleep(5);
+        limiter.evictIdleBuckets();
+        assertThat(buckets("client")).isZero();
+        assertThat(buckets("owner")).isZero();
+    }
+
+    @Test
+    void issuingClientIdsIsLimitedPerAddress() {
+        VoteRateLimiter limiter = limiter(10, 100, 10_000);
+
+        for (int i = 0; i < 200; i++) assertThat(limiter.tryIssue("10.0.0.1")).isZero();
+
+        assertThat(limiter.tryIssue("10.0.0.1")).isPositive();
+        assertThat(limiter.tryIssue("10.0.0.2")).isZero();
+    }
+
+    @Test
+    void disabledLimiterLetsEverythingThrough() {
+        VoteRateLimiter limiter = limiter(1, 1, 10_000);
+        ReflectionTestUtils.setField(limiter, "enabled", false);
+
+        for (int i = 0; i < 10; i++) assertThat(limiter.tryAcquire("owner", "c1")).isZero();
+    }
+
+    @Test
+    void rejectsCapacitiesTheBucketCannotHold() {
+        assertThatThrownBy(() -> new VoteRateLimiter(TokenBucket.MAX_CAPACITY + 1, 30, 300, 1200, 200, 60, meterRegistry))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new VoteRateLimiter(10, 0, 300, 1200, 200, 60, meterRegistry))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private VoteRateLimiter limiter(int clientCapacity, int ownerCapacity, int maxBuckets) {
+        // One token per minute: buckets do not refill noticeably while a test runs
+        VoteRateLimiter limiter = new VoteRateLimiter(clientCapacity, 1, ownerCapacity, 1, 200, 1, meterRegistry);
+        ReflectionTestUtils.setField(limiter, "enabled", true);
+        ReflectionTestUtils.setField(limiter, "maxBuckets", maxBuckets);
+        ReflectionTestUtils.setField(limiter, "idleEvictionMinutes", 10L);
+        return limiter;
+    }
+
+    private double rejected(String scope) {
+        return meterRegistry.get("jukebox.votes.ratelimit.rejected").tag("scope", scope).counter().count();
+    }
+
+    private double buckets(String scope) {
+        return meterRegistry.get("jukebox.votes.ratelimit.buckets").tag("scope", scope).gauge().value();
+    }
+}
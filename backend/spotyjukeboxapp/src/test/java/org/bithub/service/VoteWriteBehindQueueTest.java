@@ -0,0 +1,167 @@
+package org.bithub.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bithub.model.Vote;
+import org.bithub.persistence.VoteRepository;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks what {@link VoteWriteBehindQueue} does with votes the database
+ * rejects: which are dropped, which are retried and which wait for the next flush.
+ */
+class VoteWriteBehindQueueTest {
+
+    private final VoteRepository voteRepository = mock(VoteRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<List<String>> writtenBatches = Collections.synchronizedList(new ArrayList<>());
+
+    private VoteWriteBehindQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        queue = new VoteWriteBehindQueue(voteRepository, mock(PlatformTransactionManager.class), meterRegistry, 100);
+        ReflectionTestUtils.setField(queue, "batchSize", 200);
+        doAnswer(this::recordBatch).when(voteRepository).saveAll(anyList());
+    }
+
+    @AfterEach
+    void tearDown() {
+        queue.shutdown();
+    }
+
+    @Test
+    void flushWritesPendingVotesInBatches() {
+        ReflectionTestUtils.setField(queue, "batchSize", 2);
+        for (int i = 0; i < 5; i++) queue.enqueue(vote("c" + i));
+
+        queue.flush();
+
+        assertThat(writtenBatches).allSatisfy(batch -> assertThat(batch).hasSizeLessThanOrEqualTo(2));
+        assertThat(writtenBatches.stream().flatMap(List::stream)).containsExactlyInAnyOrder("c0", "c1", "c2", "c3", "c4");
+        assertThat(queued()).isZero();
+    }
+
+    @Test
+    void failedBatchIsRequeuedInOrder() {
+        doThrow(new DataAccessResourceFailureException("database down"))
+                .doAnswer(this::recordBatch)
+                .when(voteRepository).saveAll(anyList());
+        queue.enqueue(vote("c1"));
+        queue.enqueue(vote("c2"));
+
+        queue.flush();
+        assertThat(queued()).isEqualTo(2);
+        assertThat(writtenBatches).isEmpty();
+
+        queue.flush();
+        assertThat(writtenBatches).containsExactly(List.of("c1", "c2"));
+        assertThat(queued()).isZero();
+        assertThat(dropped()).isZero();
+    }
+
+    @Test
+    void duplicateRowsOfARejectedBatchAreDropped() {
+        doThrow(new DataIntegrityViolationException("batch rejected")).when(voteRepository).saveAll(anyList());
+        when(voteRepository.save(argThat(vote -> "dup".equals(vote.getClientId()))))
+                .thenThrow(new DataIntegrityViolationException("duplicate key value violates unique constraint \""
+                        + VoteWriteBehindQueue.UNIQUE_VOTE_CONSTRAINT + "\""));
+        queue.enqueue(vote("c1"));
+        queue.enqueue(vote("dup"));
+        queue.enqueue(vote("c2"));
+
+        queue.flush();
+
+        verify(voteRepository, times(3)).save(any());
+        assertThat(queued()).isZero();
+        assertThat(dropped()).isZero();
+    }
+
+    @Test
+    void otherIntegrityViolationsAreRetriedOnceThenDropped() {
+        doThrow(new DataIntegrityViolationException("batch rejected")).when(voteRepository).saveAll(anyList());
+        when(voteRepository.save(argThat(vote -> "bad".equals(vote.getClientId()))))
+                .thenThrow(new DataIntegrityViolationException("null value in column \"track_id\""));
+        queue.enqueue(vote("bad"));
+        queue.enqueue(vote("c1"));
+
+        queue.flush();
+
+        verify(voteRepository, times(2)).save(argThat(vote -> "bad".equals(vote.getClientId())));
+        assertThat(queued()).isZero();
+        assertThat(dropped()).isEqualTo(1);
+    }
+
+    @Test
+    void rowsFailingForOtherReasonsWaitForTheNextFlush() {
+        doThrow(new DataIntegrityViolationException("batch rejected")).when(voteRepository).saveAll(anyList());
+        when(voteRepository.save(argThat(vote -> "slow".equals(vote.getClientId()))))
+                .thenThrow(new DataAccessResourceFailureException("connection lost"));
+        queue.enqueue(vote("c1"));
+        queue.enqueue(vote("slow"));
+
+        queue.flush();
+
+        assertThat(queued()).isEqualTo(1);
+        assertThat(dropped()).isZero();
+    }
+
+    @Test
+    void recognizesTheUniqueConstraintInEveryDialect() {
+        assertThat(VoteWriteBehindQueue.isDuplicateVote(new DataIntegrityViolationException("could not execute batch",
+                new RuntimeException("Unique index or primary key violation: \"PUBLIC.UX_VOTES_OWNER_TRACK_CLIENT_INDEX_8\""))))
+                .isTrue();
+        assertThat(VoteWriteBehindQueue.isDuplicateVote(new DataIntegrityViolationException("could not execute batch",
+                new ConstraintViolationException("insert failed", null,
+                        VoteWriteBehindQueue.UNIQUE_VOTE_CONSTRAINT))))
+                .isTrue();
+        assertThat(VoteWriteBehindQueue.isDuplicateVote(new DataIntegrityViolationException("null value in column")))
+                .isFalse();
+    }
+
+    private List<Vote> recordBatch(InvocationOnMock invocation) {
+        List<Vote> batch = invocation.getArgument(0);
+        writtenBatches.add(batch.stream().map(Vote::getClientId).toList());
+        return batch;
+    }
+
+    private double queued() {
+        return meterRegistry.get("jukebox.votes.writebehind.queue").gauge().value();
+    }
+
+    private double dropped() {
+        return meterRegistry.get("jukebox.votes.writebehind.dropped").counter().count();
+    }
+
+    private static Vote vote(String clientId) {
+        return Vote.builder()
+                .ownerId("owner")
+                .trackId("a")
+                .clientId(clientId)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -26,16 +26,22 @@ export default function ClientSessionPage() {
   const [voted, setVoted] = useState<string | null>(null);
   const [error, setError] = useState<string | null>(null);
   const [voteError, setVoteError] = useState<string | null>(null);
+  const stompRef = useRef<Client | null>(null);
+  const seqRef = useRef<number | null>(null);
 
-  // 🔹 Benzersiz ama kalıcı clientId üret
-  const [clientId] = useState(() => {
-    let existing = localStorage.getItem("clientId");
-    if (!existing) {
-      existing = "guest-" + Math.random().toString(36).substring(2, 10);
-      localStorage.setItem("clientId", existing);
-    }
-    return existing;
-  });
+  // 🔹 Kalıcı clientId — sunucu tarafından imzalanmış olmalı, yoksa yenisini iste
+  const clientIdRef = useRef<string | null>(localStorage.getItem("clientId"));
+
+  const getClientId = async (renew = false) => {
+    const existing = clientIdRef.current;
+    if (!renew && existing && existing.includes(".")) return existing;
+
+    const res = await axios.post("http://localhost:8080/api/jukebox/client-id");
+    const issued: string = res.data.clientId;
+    localStorage.setItem("clientId", issued);
+    clientIdRef.current = issued;
+    return issued;
+  };
 
   // 📡 WebSocket bağlantısı — anlık oy güncellemesi için
   useEffect(() => {
@@ -46,15 +52,55 @@ export default function ClientSessionPage() {
       webSocketFactory: () => socket,
       reconnectDelay: 5000,
       onConnect: () => {
+        // 🔁 Tam oy durumunu (snapshot) iste; sonraki delta'lar bunun üzerine uygulanır
+        const requestSnapshot = () => {
+          seqRef.current = null;
+          const sub = client.subscribe(`/app/votes/${ownerId}/snapshot`, (message) => {
+            const snapshot = JSON.parse(message.body);
+            seqRef.current = snapshot.seq;
+            setVotes(snapshot.votes);
+            sub.unsubscribe();
+          });
+        };
+
+        // 📊 Sadece değişen şarkılar gelir (0 = oy kalmadı); sıra numarasında boşluk varsa yeniden senkronize ol
         client.subscribe(`/topic/votes/${ownerId}`, (message) => {
-          const updated = JSON.parse(message.body);
-          setVotes(updated);
+          const update = JSON.parse(message.body);
+          const last = seqRef.current;
+          if (last === null || update.seq <= last) return;
+          if (update.seq !== last + 1) {
+            requestSnapshot();
+            return;
+          }
+
+          seqRef.current = update.seq;
+          setVotes((prev) => {
+            const next = { ...prev };
+            for (const [trackId, count] of Object.entries(update.votes as Record<string, number>)) {
+              if (count === 0) delete next[trackId];
+              else next[trackId] = count;
+            }
+            return next;
+          });
+        });
+
+        requestSnapshot();
+
+        // 🗳 Oy onayı / hata cevabı (yalnızca bu oturuma)
+        client.subscribe("/user/queue/votes", (message) => {
+          const reply = JSON.parse(message.body);
+          if (!reply.error) return;
+          // Sunucu yeniden başladıysa clientId geçersizdir: yenisini al
+          if (reply.error.includes("Unknown clientId")) void getClientId(true);
+          showVoteError(reply.error);
         });
       },
     });
 
     client.activate();
+    stompRef.current = client;
     return () => {
+      stompRef.current = null;
       void client.deactivate();
     }
   }, [ownerId]);
@@ -157,29 +203,46 @@ export default function ClientSessionPage() {
     return () => clearInterval(interval);
   }, [ownerId]);
 
-  // 🗳 Oy gönder
+  const showVoteError = (message: string) => {
+    console.warn("Vote error:", message);
+
+    if (message.includes("already voted")) {
+      setVoteError("⚠️ You already voted for this song.");
+    } else {
+      setVoteError("❌ Vote failed. Try again.");
+    }
+  };
+
+  // 🗳 Oy gönder — açık WebSocket bağlantısı üzerinden, yoksa HTTP ile
   const handleVote = async (trackId: string) => {
     if (!ownerId) return;
     setVoted(trackId);
 
+    const stomp = stompRef.current;
     try {
-      await axios.post("http://localhost:8080/api/jukebox/vote", {
-        ownerId,
-        trackId,
-        clientId,
-      });
+      const clientId = await getClientId();
+      if (stomp?.connected) {
+        stomp.publish({
+          destination: "/app/vote",
+          body: JSON.stringify({ ownerId, trackId, clientId }),
+        });
+      } else {
+        const post = (id: string) =>
+          axios.post("http://localhost:8080/api/jukebox/vote", { ownerId, trackId, clientId: id });
+        try {
+          await post(clientId);
+        } catch (err: any) {
+          // Sunucu clientId'yi tanımıyor (ör. yeniden başlatma): bir kez yenisiyle dene
+          if (err.response?.status !== 401) throw err;
+          await post(await getClientId(true));
+        }
+      }
     } catch (err: any) {
-      const message =
+      showVoteError(
         err.response?.data?.error ||
         err.response?.data?.message ||
-        "Vote failed";
-      console.warn("Vote error:", message);
-
-      if (message.includes("already voted")) {
-        setVoteError("⚠️ You already voted for this song.");
-      } else {
-        setVoteError("❌ Vote failed. Try again.");
-      }
+        "Vote failed"
+      );
     } finally {
       setTimeout(() => setVoted(null), 2000);
     }